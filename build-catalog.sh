@@ -7,6 +7,16 @@ pushd catalog-generator
 mvn clean install
 popd
 
+# Build the catalog of all the versions of versions.txt in a single generator run
+if [ "$1" == "--all" ]; then
+  shift
+  echo "Building the catalog for all the WildFly versions of versions.txt"
+  pushd catalog-generator
+  mvn exec:java "-Dwildfly-versions-file=../versions.txt" "$@"
+  popd
+  exit 0
+fi
+
 latest=$( tail -n 1 versions.txt )
 if [ -z "$latest" ]; then
   echo "No WildFly version found in versions.txt, catalog has not been built"
@@ -0,0 +1,147 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Local fixture of the benchmarks, built from a variant of a committed catalog ({@code docs/<version>/<variant>}). The
+ * extracted feature-packs documentation is zipped again to benchmark the extraction and the glow rules descriptions are
+ * rebuilt from the catalog, so no network access is needed. Set {@code -Dcatalog.fixture=<variant directory>} to use
+ * another catalog.
+ */
+class CatalogFixture {
+
+    static final String FIXTURE_PROP = "catalog.fixture";
+    private static final String DEFAULT_FIXTURE = "../docs/39.0.1.Final/default";
+    // Fixed entries time, the zips content doesn't depend on the checkout.
+    private static final long ENTRY_TIME = 0;
+
+    private final Path directory;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    CatalogFixture() throws IOException {
+        directory = Paths.get(System.getProperty(FIXTURE_PROP, DEFAULT_FIXTURE)).toAbsolutePath().normalize();
+        if (!Files.isDirectory(directory.resolve("featurePacks"))) {
+            throw new IOException("No feature-packs in " + directory + ", set -D" + FIXTURE_PROP + "=<catalog variant directory>");
+        }
+    }
+
+    ObjectMapper mapper() {
+        return mapper;
+    }
+
+    /**
+     * @return The feature-packs directories, in feature-pack order.
+     */
+    List<Path> featurePackDirectories() throws IOException {
+        try (Stream<Path> dirs = Files.list(directory.resolve("featurePacks"))) {
+            return dirs.filter(Files::isDirectory)
+                    .sorted((a, b) -> Integer.compare(order(a), order(b)))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @return The feature-packs {@code metadata.json}, in feature-pack order.
+     */
+    List<JsonNode> metadata() throws IOException {
+        List<JsonNode> metadata = new ArrayList<>();
+        for (Path fpDirectory : featurePackDirectories()) {
+            metadata.add(Main.readMetadata(mapper, fpDirectory));
+        }
+        return metadata;
+    }
+
+    /**
+     * @return The index of the reference pages of all the feature-packs.
+     */
+    ReferenceIndex referenceIndex() throws IOException {
+        ReferenceIndex referenceIndex = new ReferenceIndex();
+        for (Path fpDirectory : featurePackDirectories()) {
+            referenceIndex.add(fpDirectory.getFileName().toString(), ReferenceIndex.listPages(fpDirectory));
+        }
+        return referenceIndex;
+    }
+
+    /**
+     * @return The glow rules descriptions found in the catalog.
+     */
+    Properties glowRulesDescriptions() throws IOException {
+        Properties props = new Properties();
+        for (JsonNode category : catalog().get("categories")) {
+            for (JsonNode layer : category.get("functionalities")) {
+                JsonNode rules = layer.get("glowRules");
+                if (rules == null) {
+                    continue;
+                }
+                for (JsonNode rule : rules) {
+                    String name = rule.get("name").asText();
+                    if (rule.hasNonNull("ruleDescription")) {
+                        props.setProperty(name, rule.get("ruleDescription").asText());
+                    }
+                    if (rule.hasNonNull("valueDescription")) {
+                        props.setProperty(name + ".value", rule.get("valueDescription").asText());
+                    }
+                }
+            }
+        }
+        return props;
+    }
+
+    JsonNode catalog() throws IOException {
+        return mapper.readTree(directory.resolve("wildfly-catalog.json").toFile());
+    }
+
+    /**
+     * Zip the extracted documentation of the feature-packs, as found in the doc zip artifacts.
+     *
+     * @param target The directory to write the zips to.
+     * @return The zips, in feature-pack order.
+     */
+    List<Path> docZips(Path target) throws IOException {
+        Files.createDirectories(target);
+        List<Path> zips = new ArrayList<>();
+        for (Path fpDirectory : featurePackDirectories()) {
+            Path zip = target.resolve(fpDirectory.getFileName() + "-doc.zip");
+            try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip));
+                    Stream<Path> files = Files.walk(fpDirectory)) {
+                for (Path file : (Iterable<Path>) files.sorted()::iterator) {
+                    if (file.equals(fpDirectory)) {
+                        continue;
+                    }
+                    String name = fpDirectory.relativize(file).toString().replace('\\', '/');
+                    boolean dir = Files.isDirectory(file);
+                    ZipEntry entry = new ZipEntry(dir ? name + "/" : name);
+                    entry.setTime(ENTRY_TIME);
+                    out.putNextEntry(entry);
+                    if (!dir) {
+                        Files.copy(file, out);
+                    }
+                    out.closeEntry();
+                }
+            }
+            zips.add(zip);
+        }
+        return zips;
+    }
+
+    private static int order(Path fpDirectory) {
+        String name = fpDirectory.getFileName().toString();
+        return Integer.parseInt(name.substring(0, name.indexOf('_')));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of the fixture catalog, as pretty printed JSON, compact JSON and binary catalog. The size of each encoding
+ * is printed when the benchmark is set up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class CatalogFormatBenchmark {
+
+    private ObjectMapper mapper;
+    private byte[] prettyJson;
+    private byte[] compactJson;
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        CatalogFixture fixture = new CatalogFixture();
+        mapper = fixture.mapper();
+        JsonNode catalog = fixture.catalog();
+        prettyJson = mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(catalog);
+        compactJson = mapper.writeValueAsBytes(catalog);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryCatalog.transcode(mapper.getFactory(), new ByteArrayInputStream(prettyJson), out);
+        binary = out.toByteArray();
+        if (!BinaryCatalog.read(new ByteArrayInputStream(binary)).equals(catalog)) {
+            throw new IOException("The binary catalog differs from the JSON catalog");
+        }
+        System.out.println("Catalog sizes: pretty JSON " + prettyJson.length + " bytes, compact JSON " + compactJson.length
+                + " bytes, binary " + binary.length + " bytes");
+    }
+
+    @Benchmark
+    public JsonNode parsePrettyJson() throws IOException {
+        return mapper.readTree(prettyJson);
+    }
+
+    @Benchmark
+    public JsonNode parseCompactJson() throws IOException {
+        return mapper.readTree(compactJson);
+    }
+
+    @Benchmark
+    public JsonNode parseBinary() throws IOException {
+        return BinaryCatalog.read(new ByteArrayInputStream(binary));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization of the fixture catalog, pretty printed as done by the generator and compact for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class CatalogWriteBenchmark {
+
+    private JsonNode catalog;
+    private ObjectWriter prettyWriter;
+    private ObjectWriter compactWriter;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        CatalogFixture fixture = new CatalogFixture();
+        ObjectMapper mapper = fixture.mapper();
+        catalog = fixture.catalog();
+        prettyWriter = mapper.writerWithDefaultPrettyPrinter();
+        compactWriter = mapper.writer();
+    }
+
+    @Benchmark
+    public JsonNode writePretty() throws IOException {
+        prettyWriter.writeValue(OutputStream.nullOutputStream(), catalog);
+        return catalog;
+    }
+
+    @Benchmark
+    public JsonNode writeCompact() throws IOException {
+        compactWriter.writeValue(OutputStream.nullOutputStream(), catalog);
+        return catalog;
+    }
+}
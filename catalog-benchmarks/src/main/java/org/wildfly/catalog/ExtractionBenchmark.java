@@ -0,0 +1,78 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Extraction of the feature-packs doc zips ({@code unzip}, sequential {@link ZipExtractor}) to an empty directory, as
+ * done by a first generation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ExtractionBenchmark {
+
+    private Path work;
+    private List<Path> zips;
+    private Path featurePacks;
+    private ContentStore contentStore;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        work = Files.createTempDirectory("catalog-extraction");
+        zips = new CatalogFixture().docZips(work.resolve("zips"));
+        featurePacks = work.resolve("featurePacks");
+        contentStore = new ContentStore(work.resolve("store"));
+    }
+
+    @Setup(Level.Invocation)
+    public void clean() {
+        Main.recursiveDelete(featurePacks);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Main.recursiveDelete(work);
+    }
+
+    @Benchmark
+    public Path unzip() throws IOException {
+        for (Path zip : zips) {
+            Main.unzip(zip, featurePacks.resolve(zip.getFileName().toString()));
+        }
+        return featurePacks;
+    }
+
+    /**
+     * Extraction with a content store already populated by the previous invocations.
+     */
+    @Benchmark
+    public Path unzipWithContentStore() throws IOException {
+        for (Path zip : zips) {
+            Main.unzip(zip, featurePacks.resolve(zip.getFileName().toString()), contentStore);
+        }
+        return featurePacks;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wildfly.catalog.Resources.CatalogLayer;
+
+/**
+ * Catalog layers generation ({@code generateCatalog}) of all the feature-packs of the fixture: glow rules and
+ * properties processing and management model URLs resolution. The metadata are modified in place by the generation, a
+ * copy is generated by each invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class GenerationBenchmark {
+
+    private ObjectMapper mapper;
+    private List<JsonNode> metadata;
+    private Properties glowRulesDescriptions;
+    private ReferenceIndex referenceIndex;
+    private List<JsonNode> copies;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        CatalogFixture fixture = new CatalogFixture();
+        mapper = fixture.mapper();
+        metadata = fixture.metadata();
+        glowRulesDescriptions = fixture.glowRulesDescriptions();
+        referenceIndex = fixture.referenceIndex();
+    }
+
+    @Setup(Level.Invocation)
+    public void copy() {
+        copies = new ArrayList<>();
+        for (JsonNode fpMetadata : metadata) {
+            copies.add(fpMetadata.deepCopy());
+        }
+    }
+
+    @Benchmark
+    public void generateCatalog(Blackhole blackhole) throws Exception {
+        for (JsonNode fpMetadata : copies) {
+            List<CatalogLayer> layers = Main.generateCatalog(fpMetadata, glowRulesDescriptions, mapper, referenceIndex);
+            blackhole.consume(layers);
+        }
+    }
+}
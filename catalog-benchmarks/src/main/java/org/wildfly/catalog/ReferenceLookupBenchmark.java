@@ -0,0 +1,96 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Resolution of the management model {@code _address} to the reference pages URLs ({@code navigate}/{@code find}) of
+ * all the layers of the fixture. The addresses not found are reported on the console by {@code navigate}, it is only
+ * measured on the models whose addresses are all found so that no console output is timed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ReferenceLookupBenchmark {
+
+    private ReferenceIndex referenceIndex;
+    private List<JsonNode> models;
+    private List<String> paths;
+    private List<JsonNode> copies;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        CatalogFixture fixture = new CatalogFixture();
+        referenceIndex = fixture.referenceIndex();
+        models = new ArrayList<>();
+        for (JsonNode fpMetadata : fixture.metadata()) {
+            for (JsonNode layer : fpMetadata.get("layers")) {
+                for (String field : List.of("managementModel", "configurations")) {
+                    if (layer.has(field)) {
+                        models.add(layer.get(field));
+                    }
+                }
+            }
+        }
+        paths = new ArrayList<>();
+        List<JsonNode> resolved = new ArrayList<>();
+        for (JsonNode model : models) {
+            boolean found = true;
+            for (JsonNode address : model.findValues("_address")) {
+                String path = Main.formatURL(address.asText());
+                if (path != null) {
+                    paths.add(path.startsWith("/") ? path.substring(1) : path);
+                }
+                found &= Main.findAddress(referenceIndex, address.asText()) != null;
+            }
+            if (found) {
+                resolved.add(model);
+            }
+        }
+        models = resolved;
+    }
+
+    @Setup(Level.Invocation)
+    public void copy() {
+        copies = new ArrayList<>();
+        for (JsonNode model : models) {
+            copies.add(model.deepCopy());
+        }
+    }
+
+    @Benchmark
+    public void find(Blackhole blackhole) {
+        for (String path : paths) {
+            blackhole.consume(referenceIndex.find(path));
+        }
+    }
+
+    @Benchmark
+    public List<JsonNode> navigate() {
+        for (JsonNode model : copies) {
+            Main.navigate(referenceIndex, model);
+        }
+        return copies;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Content hashed names for the static assets of a generated variant, so that they can be cached as immutable: the
+ * feature-packs doc CSS and JavaScript files and the JSON files loaded by the viewer (catalog or catalog index, layer
+ * shards and search index). A copy of each asset is written with the first hexadecimal digits of its SHA-256 before its
+ * extension ({@code styles.0123456789.css}), the original files are kept for external links. The references are
+ * rewritten in the extracted doc pages (in parallel) and in a copy of the catalog index, the viewer is rendered with
+ * the fingerprinted names. The fingerprinted names of the variant files are listed in {@code wildfly-catalog-assets.json}.
+ */
+class AssetFingerprinter {
+
+    static final String MANIFEST = "wildfly-catalog-assets.json";
+    private static final int HASH_LENGTH = 10;
+    private static final Pattern FINGERPRINTED = Pattern.compile("\\.[0-9a-f]{" + HASH_LENGTH + "}\\.[a-z]+$");
+    private static final Pattern REFERENCE = Pattern.compile("(href|src)=\"([^\"#?:]+)\"");
+    private static final List<String> DOC_EXTENSIONS = List.of(".css", ".js");
+    private static final String FEATURE_PACKS = "featurePacks";
+
+    /**
+     * @param catalog The fingerprinted file name of the JSON loaded by the viewer.
+     * @param searchIndex The fingerprinted file name of the search index.
+     * @param hash The hash of the manifest, changes when any asset changes.
+     */
+    record Assets(String catalog, String searchIndex, String hash) {}
+
+    /**
+     * @param mapper The mapper.
+     * @param variantDirectory The generated variant directory.
+     * @param viewerJson The JSON loaded by the viewer, the catalog or the catalog index.
+     * @param searchIndex The search index.
+     * @param threads The number of doc pages rewritten in parallel.
+     * @return The fingerprinted names of the viewer files.
+     * @throws Exception in case of a failure
+     */
+    static Assets fingerprint(ObjectMapper mapper, Path variantDirectory, Path viewerJson, Path searchIndex, int threads) throws Exception {
+        long start = System.nanoTime();
+        Map<String, String> names = new TreeMap<>();
+        Path featurePacks = variantDirectory.resolve(FEATURE_PACKS);
+        List<Path> pages = new ArrayList<>();
+        if (Files.isDirectory(featurePacks)) {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(featurePacks)) {
+                files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".html")) {
+                    pages.add(file);
+                } else if (DOC_EXTENSIONS.stream().anyMatch(name::endsWith) && !FINGERPRINTED.matcher(name).find()) {
+                    names.put(relativePath(variantDirectory, file), relativePath(variantDirectory, copy(file, Files.readAllBytes(file))));
+                }
+            }
+        }
+        int rewritten = rewritePages(variantDirectory, pages, names, threads);
+        // Fingerprinted catalog files of a previous generation.
+        try (Stream<Path> list = Files.list(variantDirectory)) {
+            for (Path file : list.collect(Collectors.toList())) {
+                String name = file.getFileName().toString();
+                if (name.startsWith("wildfly-catalog") && FINGERPRINTED.matcher(name).find()) {
+                    Files.delete(file);
+                }
+            }
+        }
+        byte[] viewerContent;
+        Path shardsDirectory = variantDirectory.resolve(CatalogShards.SHARDS_DIRECTORY);
+        if (viewerJson.getFileName().toString().equals(CatalogShards.INDEX) && Files.isDirectory(shardsDirectory)) {
+            try (Stream<Path> list = Files.list(shardsDirectory)) {
+                for (Path shard : list.sorted().collect(Collectors.toList())) {
+                    names.put(relativePath(variantDirectory, shard), relativePath(variantDirectory, copy(shard, Files.readAllBytes(shard))));
+                }
+            }
+            viewerContent = rewriteShards(mapper, viewerJson, names);
+        } else {
+            viewerContent = Files.readAllBytes(viewerJson);
+        }
+        Path catalog = copy(viewerJson, viewerContent);
+        names.put(viewerJson.getFileName().toString(), catalog.getFileName().toString());
+        Path search = copy(searchIndex, Files.readAllBytes(searchIndex));
+        names.put(searchIndex.getFileName().toString(), search.getFileName().toString());
+        byte[] manifest = mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(names);
+        Files.write(variantDirectory.resolve(MANIFEST), manifest);
+        System.out.println("Fingerprinted " + names.size() + " assets, rewritten " + rewritten + " of " + pages.size() + " doc pages in "
+                + (System.nanoTime() - start) / 1_000_000 + "ms");
+        return new Assets(catalog.getFileName().toString(), search.getFileName().toString(), hash(manifest));
+    }
+
+    /**
+     * Copy the index, with the fingerprinted layer shards locations.
+     */
+    private static byte[] rewriteShards(ObjectMapper mapper, Path index, Map<String, String> names) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonParser parser = mapper.createParser(index.toFile());
+                JsonGenerator generator = mapper.createGenerator(out, JsonEncoding.UTF8)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.VALUE_STRING && "detailsShard".equals(parser.currentName())) {
+                    generator.writeString(names.getOrDefault(parser.getText(), parser.getText()));
+                } else {
+                    generator.copyCurrentEvent(parser);
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static int rewritePages(Path variantDirectory, List<Path> pages, Map<String, String> names, int threads) throws Exception {
+        if (names.isEmpty() || pages.isEmpty()) {
+            return 0;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        int rewritten = 0;
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (Path page : pages) {
+                futures.add(executor.submit(() -> rewritePage(variantDirectory, page, names)));
+            }
+            for (Future<Boolean> future : futures) {
+                if (Main.await(future)) {
+                    rewritten += 1;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return rewritten;
+    }
+
+    /**
+     * Replace the {@code href} and {@code src} relative references to the assets, only the file name changes.
+     */
+    private static boolean rewritePage(Path variantDirectory, Path page, Map<String, String> names) throws IOException {
+        String content = Files.readString(page, StandardCharsets.UTF_8);
+        Matcher matcher = REFERENCE.matcher(content);
+        StringBuilder builder = new StringBuilder(content.length());
+        boolean changed = false;
+        while (matcher.find()) {
+            String reference = matcher.group(2);
+            String fingerprinted = names.get(relativePath(variantDirectory, page.getParent().resolve(reference).normalize()));
+            String replacement = matcher.group();
+            if (fingerprinted != null) {
+                replacement = matcher.group(1) + "=\"" + reference.substring(0, reference.lastIndexOf('/') + 1)
+                        + fingerprinted.substring(fingerprinted.lastIndexOf('/') + 1) + "\"";
+                changed = true;
+            }
+            matcher.appendReplacement(builder, Matcher.quoteReplacement(replacement));
+        }
+        if (!changed) {
+            return false;
+        }
+        matcher.appendTail(builder);
+        replace(page, builder.toString().getBytes(StandardCharsets.UTF_8));
+        return true;
+    }
+
+    /**
+     * Write the fingerprinted copy of a file, the copies of previous contents are deleted.
+     */
+    private static Path copy(Path file, byte[] content) throws IOException {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = name.substring(0, dot);
+        String extension = name.substring(dot);
+        Path target = file.resolveSibling(base + "." + hash(content).substring(0, HASH_LENGTH) + extension);
+        try (Stream<Path> siblings = Files.list(file.getParent())) {
+            for (Path sibling : siblings.collect(Collectors.toList())) {
+                String siblingName = sibling.getFileName().toString();
+                if (!sibling.equals(target) && siblingName.startsWith(base + ".") && siblingName.endsWith(extension)
+                        && siblingName.length() == name.length() + HASH_LENGTH + 1 && FINGERPRINTED.matcher(siblingName).find()) {
+                    Files.delete(sibling);
+                }
+            }
+        }
+        if (!Files.exists(target)) {
+            replace(target, content);
+        }
+        return target;
+    }
+
+    /**
+     * Extracted files can be links to shared content, they are replaced, never written through.
+     */
+    private static void replace(Path file, byte[] content) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + "." + Thread.currentThread().getId() + ".tmp");
+        Files.write(tmp, content);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String relativePath(Path variantDirectory, Path file) {
+        return variantDirectory.relativize(file).toString().replace('\\', '/');
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
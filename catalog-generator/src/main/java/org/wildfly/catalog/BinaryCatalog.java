@@ -0,0 +1,93 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Binary (Smile) encoding of a generated catalog, for programmatic consumers. The document is the same as
+ * {@code wildfly-catalog.json}, the field names and the short string values (stability, feature-pack coordinates,
+ * Glow rules names, ...) are written once and then back-referenced. The catalog JSON is transcoded token by token, the
+ * catalog is not loaded in memory.
+ */
+public final class BinaryCatalog {
+
+    public static final String FILE = "wildfly-catalog.sml";
+    public static final String EXTENSION = ".sml";
+
+    private static final SmileFactory FACTORY = SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build();
+    private static final ObjectMapper MAPPER = new ObjectMapper(FACTORY);
+
+    private BinaryCatalog() {
+    }
+
+    /**
+     * Read a binary catalog.
+     *
+     * @param file The binary catalog file.
+     * @return The catalog, as read from {@code wildfly-catalog.json}.
+     * @throws IOException in case of a failure
+     */
+    public static JsonNode read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * @param in The binary catalog content.
+     * @return The catalog, as read from {@code wildfly-catalog.json}.
+     * @throws IOException in case of a failure
+     */
+    public static JsonNode read(InputStream in) throws IOException {
+        return MAPPER.readTree(in);
+    }
+
+    /**
+     * @param mapper The mapper.
+     * @param json The generated catalog.
+     * @return The binary catalog, written next to the catalog.
+     * @throws IOException in case of a failure
+     */
+    static Path write(ObjectMapper mapper, Path json) throws IOException {
+        Path file = json.resolveSibling(FILE);
+        try (InputStream in = Files.newInputStream(json); OutputStream out = Files.newOutputStream(file)) {
+            transcode(mapper.getFactory(), in, out);
+        }
+        System.out.println("Binary catalog " + file.getFileName() + " (" + Files.size(file) + " bytes, JSON "
+                + Files.size(json) + " bytes) written");
+        return file;
+    }
+
+    /**
+     * Transcode a JSON catalog to the binary encoding.
+     *
+     * @param jsonFactory The JSON factory.
+     * @param json The JSON catalog.
+     * @param out The stream to write the binary catalog to.
+     * @throws IOException in case of a failure
+     */
+    static void transcode(JsonFactory jsonFactory, InputStream json, OutputStream out) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json); JsonGenerator generator = FACTORY.createGenerator(out)) {
+            while (parser.nextToken() != null) {
+                generator.copyCurrentEvent(parser);
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Per variant cache of the feature-packs processed by a previous generation. The manifest records, for each
+ * feature-pack, its Maven coordinates, the doc zip checksum and the generator version. When unchanged, the doc zip is
+ * not extracted again and the feature-pack catalog entry and layers computed by the previous generation are reused.
+ */
+class CatalogCache {
+
+    private static final String MANIFEST = "manifest.json";
+    private static final String GENERATOR_PROPERTIES = "generator.properties";
+
+    private static String generatorVersion;
+
+    private final Path directory;
+    private final ObjectMapper mapper;
+    private final ObjectNode previousManifest;
+    private final ObjectNode manifest;
+
+    CatalogCache(Path directory, ObjectMapper mapper, String glowRulesChecksum) throws IOException {
+        this.directory = directory;
+        this.mapper = mapper;
+        Files.createDirectories(directory);
+        manifest = mapper.createObjectNode();
+        manifest.put("generatorVersion", generatorVersion());
+        manifest.put("glowRulesChecksum", glowRulesChecksum);
+        manifest.putArray("featurePacks");
+        Path manifestFile = directory.resolve(MANIFEST);
+        ObjectNode previous = null;
+        if (Files.exists(manifestFile)) {
+            previous = (ObjectNode) mapper.readTree(manifestFile.toFile());
+            if (!manifest.get("generatorVersion").equals(previous.get("generatorVersion"))
+                    || !manifest.get("glowRulesChecksum").equals(previous.get("glowRulesChecksum"))) {
+                previous = null;
+            }
+        }
+        previousManifest = previous;
+    }
+
+    /**
+     * @return true if the feature-pack at the given position has been processed by the previous generation from the
+     * same doc zip.
+     */
+    boolean isUnchanged(int fpIndex, String mavenCoordinates, String directoryName, String checksum) {
+        if (previousManifest == null || fpIndex >= previousManifest.get("featurePacks").size()) {
+            return false;
+        }
+        JsonNode entry = previousManifest.get("featurePacks").get(fpIndex);
+        return mavenCoordinates.equals(entry.get("mavenCoordinates").asText())
+                && directoryName.equals(entry.get("directory").asText())
+                && checksum.equals(entry.get("checksum").asText())
+                && Files.exists(entryFile(directoryName));
+    }
+
+    Resources.CachedFeaturePack load(String directoryName) throws IOException {
+        JsonNode entry = mapper.readTree(entryFile(directoryName).toFile());
+        List<String> referencePages = new ArrayList<>();
+        for (JsonNode page : entry.get("referencePages")) {
+            referencePages.add(page.asText());
+        }
+        List<Resources.CatalogLayer> layers = new ArrayList<>();
+        for (JsonNode layer : entry.get("layers")) {
+            layers.add(new Resources.CatalogLayer(layer.get("category").asText(), layer.get("name").asText(), (ObjectNode) layer.get("layer")));
+        }
+        return new Resources.CachedFeaturePack((ObjectNode) entry.get("featurePack"), referencePages, layers);
+    }
+
+    /**
+     * Records a feature-pack. The entry must be stored before its layers are merged in the catalog.
+     */
+    void store(String mavenCoordinates, String directoryName, String checksum, ObjectNode fpNode,
+            List<String> referencePages, List<Resources.CatalogLayer> layers) throws IOException {
+        ObjectNode entry = mapper.createObjectNode();
+        entry.set("featurePack", fpNode.deepCopy());
+        ArrayNode pages = entry.putArray("referencePages");
+        for (String page : referencePages) {
+            pages.add(page);
+        }
+        ArrayNode layersArray = entry.putArray("layers");
+        for (Resources.CatalogLayer layer : layers) {
+            ObjectNode layerNode = layersArray.addObject();
+            layerNode.put("category", layer.category());
+            layerNode.put("name", layer.name());
+            layerNode.set("layer", layer.layer());
+        }
+        mapper.writeValue(entryFile(directoryName).toFile(), entry);
+        record(mavenCoordinates, directoryName, checksum);
+    }
+
+    void record(String mavenCoordinates, String directoryName, String checksum) {
+        ObjectNode fpEntry = ((ArrayNode) manifest.get("featurePacks")).addObject();
+        fpEntry.put("mavenCoordinates", mavenCoordinates);
+        fpEntry.put("directory", directoryName);
+        fpEntry.put("checksum", checksum);
+    }
+
+    void writeManifest() throws IOException {
+        mapper.writerWithDefaultPrettyPrinter().writeValue(directory.resolve(MANIFEST).toFile(), manifest);
+    }
+
+    private Path entryFile(String directoryName) {
+        return directory.resolve(directoryName + ".json");
+    }
+
+    static String checksum(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    static String checksum(Properties properties) {
+        MessageDigest digest = newDigest();
+        for (var entry : new TreeMap<>(properties).entrySet()) {
+            digest.update((entry.getKey() + "=" + entry.getValue() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * The project version and the checksum of the generator classes and version, so iterating on the generator
+     * invalidates the cache. The templates and the catalog metadata are not part of it, they don't change the cached
+     * feature-packs and layers. Computed once per run, the cache is created for each variant.
+     */
+    private static synchronized String generatorVersion() throws IOException {
+        if (generatorVersion == null) {
+            Properties props = new Properties();
+            try (InputStream in = CatalogCache.class.getResourceAsStream(GENERATOR_PROPERTIES)) {
+                if (in != null) {
+                    props.load(in);
+                }
+            }
+            generatorVersion = props.getProperty("version", "unknown") + "-" + generatorChecksum();
+        }
+        return generatorVersion;
+    }
+
+    /**
+     * The checksum of the classes and of the generator properties of the generator jar or, when run from the build
+     * directory, of the classes directory, in name order.
+     */
+    private static String generatorChecksum() throws IOException {
+        Path location;
+        try {
+            location = Paths.get(CatalogCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException ex) {
+            throw new IOException(ex);
+        }
+        String properties = CatalogCache.class.getPackageName().replace('.', '/') + "/" + GENERATOR_PROPERTIES;
+        MessageDigest digest = newDigest();
+        if (Files.isDirectory(location)) {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(location)) {
+                files = walk.filter(Files::isRegularFile).sorted().toList();
+            }
+            for (Path file : files) {
+                String name = location.relativize(file).toString().replace('\\', '/');
+                if (name.endsWith(".class") || name.equals(properties)) {
+                    digest.update((name + "\n").getBytes(StandardCharsets.UTF_8));
+                    digest.update(Files.readAllBytes(file));
+                }
+            }
+        } else {
+            try (ZipFile jar = new ZipFile(location.toFile())) {
+                List<? extends ZipEntry> entries = jar.stream()
+                        .filter(e -> e.getName().endsWith(".class") || e.getName().equals(properties))
+                        .sorted(Comparator.comparing(ZipEntry::getName))
+                        .toList();
+                for (ZipEntry entry : entries) {
+                    digest.update((entry.getName() + "\n").getBytes(StandardCharsets.UTF_8));
+                    try (InputStream in = jar.getInputStream(entry)) {
+                        digest.update(in.readAllBytes());
+                    }
+                }
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+/**
+ * Changes of a generated variant catalog since the catalog of the previous WildFly version, so that an upgrade can be
+ * reviewed without comparing two catalogs. The feature-packs are matched by group and artifact id, the layers by name
+ * and feature-pack group and artifact id, each catalog being indexed once (hash joins), then compared:
+ * <ul>
+ * <li>feature-packs added, removed and updated (version change),</li>
+ * <li>layers added and removed,</li>
+ * <li>for the layers of both catalogs, the stability, the dependencies (added, removed, optional change), the Glow
+ * rules (added, removed) and the management model resources (addresses added, removed) and attributes (added, removed,
+ * value change).</li>
+ * </ul>
+ * The compact {@link #FILE} is written next to the catalog and displayed by the {@link #PAGE} page.
+ */
+class CatalogDiff {
+
+    static final String FILE = "wildfly-catalog-diff.json";
+    static final String PAGE = "catalog-diff.html";
+    private static final String ATTRIBUTE_SEPARATOR = "@@@";
+    // The stability of the layers that don't define one, see Main.
+    private static final String DEFAULT_STABILITY = "default";
+
+    /**
+     * @param version The previous WildFly version.
+     * @param directory The directory of the previous version catalog.
+     * @param generation The generation of the previous version when generated by the same run, null otherwise.
+     */
+    record Previous(String version, Path directory, Future<Void> generation) {}
+
+    private record Layer(String name, String featurePack, JsonNode node) {}
+
+    private record Model(Set<String> resources, Map<String, String> attributes) {}
+
+    private final JsonGenerator generator;
+    private int changedLayers;
+
+    private CatalogDiff(JsonGenerator generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * @param mapper The mapper.
+     * @param catalog The generated catalog.
+     * @param previous The previous version.
+     * @param version The generated WildFly version.
+     * @param variant The variant directory.
+     * @return The diff file, written next to the catalog, null if the previous version has no catalog of the variant.
+     * @throws Exception in case of a failure
+     */
+    static Path write(ObjectMapper mapper, Path catalog, Previous previous, String version, String variant) throws Exception {
+        long start = System.nanoTime();
+        Path file = catalog.resolveSibling(FILE);
+        Files.deleteIfExists(file);
+        if (previous.generation() != null) {
+            // Same run, the previous version catalog is being generated.
+            try {
+                Main.await(previous.generation());
+            } catch (Exception ex) {
+                System.out.println("Generation of WildFly " + previous.version() + " failed, no diff for " + version + " " + variant);
+                return null;
+            }
+        }
+        Path previousCatalog = previous.directory().resolve(variant).resolve(catalog.getFileName());
+        if (!Files.exists(previousCatalog)) {
+            System.out.println("No " + variant + " catalog for WildFly " + previous.version() + " in " + previous.directory().getParent()
+                    + ", no diff for " + version);
+            return null;
+        }
+        JsonNode from = mapper.readTree(previousCatalog.toFile());
+        JsonNode to = mapper.readTree(catalog.toFile());
+        CatalogDiff diff;
+        try (JsonGenerator generator = mapper.createGenerator(file.toFile(), JsonEncoding.UTF8)) {
+            diff = new CatalogDiff(generator);
+            generator.writeStartObject();
+            generator.writeStringField("version", version);
+            generator.writeStringField("previousVersion", previous.version());
+            generator.writeStringField("variant", variant);
+            diff.featurePacks(from, to);
+            diff.layers(layers(from), layers(to));
+            generator.writeEndObject();
+        }
+        System.out.println("Catalog diff " + file.getFileName() + " of " + variant + " " + version + " since " + previous.version() + " ("
+                + diff.changedLayers + " layers changed, " + Files.size(file) + " bytes) written in "
+                + (System.nanoTime() - start) / 1_000_000 + "ms");
+        return file;
+    }
+
+    private void featurePacks(JsonNode from, JsonNode to) throws IOException {
+        Map<String, String> previousVersions = new HashMap<>();
+        for (JsonNode featurePack : from.path("featurePacks")) {
+            String coordinates = featurePack.path("mavenCoordinates").asText();
+            previousVersions.put(groupArtifact(coordinates), version(coordinates));
+        }
+        List<String> added = new ArrayList<>();
+        List<Object[]> updated = new ArrayList<>();
+        for (JsonNode featurePack : to.path("featurePacks")) {
+            String coordinates = featurePack.path("mavenCoordinates").asText();
+            String previousVersion = previousVersions.remove(groupArtifact(coordinates));
+            if (previousVersion == null) {
+                added.add(coordinates);
+            } else if (!previousVersion.equals(version(coordinates))) {
+                updated.add(new Object[] {groupArtifact(coordinates), previousVersion, version(coordinates)});
+            }
+        }
+        generator.writeObjectFieldStart("featurePacks");
+        writeStrings("added", added);
+        List<String> removed = new ArrayList<>();
+        for (Entry<String, String> entry : previousVersions.entrySet()) {
+            removed.add(entry.getKey() + ":" + entry.getValue());
+        }
+        removed.sort(null);
+        writeStrings("removed", removed);
+        writeTuples("updated", updated);
+        generator.writeEndObject();
+    }
+
+    private void layers(Map<String, Layer> from, Map<String, Layer> to) throws IOException {
+        generator.writeObjectFieldStart("layers");
+        generator.writeArrayFieldStart("added");
+        for (Entry<String, Layer> entry : to.entrySet()) {
+            if (!from.containsKey(entry.getKey())) {
+                writeLayer(entry.getValue());
+                generator.writeEndObject();
+            }
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("removed");
+        for (Entry<String, Layer> entry : from.entrySet()) {
+            if (!to.containsKey(entry.getKey())) {
+                Layer layer = entry.getValue();
+                generator.writeStartObject();
+                generator.writeStringField("name", layer.name());
+                generator.writeStringField("featurePack", layer.featurePack());
+                generator.writeEndObject();
+            }
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("changed");
+        for (Entry<String, Layer> entry : to.entrySet()) {
+            Layer previous = from.get(entry.getKey());
+            if (previous != null) {
+                changedLayer(previous, entry.getValue());
+            }
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private void writeLayer(Layer layer) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("name", layer.name());
+        generator.writeStringField("featurePack", layer.featurePack());
+        generator.writeStringField("page", StaticPages.LAYERS_DIRECTORY + "/" + StaticPages.layerId(layer.name(), layer.featurePack()) + ".html");
+    }
+
+    private static String stability(JsonNode layer) {
+        String stability = text(layer, "stability");
+        return stability == null ? DEFAULT_STABILITY : stability;
+    }
+
+    private void changedLayer(Layer from, Layer to) throws IOException {
+        String previousStability = stability(from.node());
+        String stability = stability(to.node());
+        boolean stabilityChanged = !previousStability.equals(stability);
+
+        Map<String, Boolean> previousDependencies = dependencies(from.node());
+        List<Object[]> addedDependencies = new ArrayList<>();
+        List<Object[]> optionalDependencies = new ArrayList<>();
+        for (Entry<String, Boolean> dependency : dependencies(to.node()).entrySet()) {
+            Boolean optional = previousDependencies.remove(dependency.getKey());
+            if (optional == null) {
+                addedDependencies.add(new Object[] {dependency.getKey(), dependency.getValue()});
+            } else if (!optional.equals(dependency.getValue())) {
+                optionalDependencies.add(new Object[] {dependency.getKey(), dependency.getValue()});
+            }
+        }
+        List<Object[]> removedDependencies = new ArrayList<>();
+        previousDependencies.forEach((name, optional) -> removedDependencies.add(new Object[] {name, optional}));
+
+        Map<String, Object[]> previousRules = glowRules(from.node());
+        List<Object[]> addedRules = new ArrayList<>();
+        for (Entry<String, Object[]> rule : glowRules(to.node()).entrySet()) {
+            if (previousRules.remove(rule.getKey()) == null) {
+                addedRules.add(rule.getValue());
+            }
+        }
+        List<Object[]> removedRules = new ArrayList<>(previousRules.values());
+
+        Model previousModel = model(from.node());
+        Model model = model(to.node());
+        List<String> addedResources = new ArrayList<>();
+        for (String resource : model.resources()) {
+            if (!previousModel.resources().remove(resource)) {
+                addedResources.add(resource);
+            }
+        }
+        List<String> removedResources = new ArrayList<>(previousModel.resources());
+        List<Object[]> addedAttributes = new ArrayList<>();
+        List<Object[]> changedAttributes = new ArrayList<>();
+        for (Entry<String, String> attribute : model.attributes().entrySet()) {
+            String previousValue = previousModel.attributes().remove(attribute.getKey());
+            if (previousValue == null) {
+                addedAttributes.add(attribute(attribute.getKey(), attribute.getValue()));
+            } else if (!previousValue.equals(attribute.getValue())) {
+                changedAttributes.add(attribute(attribute.getKey(), previousValue, attribute.getValue()));
+            }
+        }
+        List<Object[]> removedAttributes = new ArrayList<>();
+        previousModel.attributes().forEach((key, value) -> removedAttributes.add(attribute(key, value)));
+
+        if (!stabilityChanged && addedDependencies.isEmpty() && removedDependencies.isEmpty() && optionalDependencies.isEmpty()
+                && addedRules.isEmpty() && removedRules.isEmpty() && addedResources.isEmpty() && removedResources.isEmpty()
+                && addedAttributes.isEmpty() && removedAttributes.isEmpty() && changedAttributes.isEmpty()) {
+            return;
+        }
+        changedLayers += 1;
+        writeLayer(to);
+        if (stabilityChanged) {
+            generator.writeArrayFieldStart("stability");
+            generator.writeString(previousStability);
+            generator.writeString(stability);
+            generator.writeEndArray();
+        }
+        if (!addedDependencies.isEmpty() || !removedDependencies.isEmpty() || !optionalDependencies.isEmpty()) {
+            generator.writeObjectFieldStart("dependencies");
+            writeTuples("added", addedDependencies);
+            writeTuples("removed", removedDependencies);
+            writeTuples("optional", optionalDependencies);
+            generator.writeEndObject();
+        }
+        if (!addedRules.isEmpty() || !removedRules.isEmpty()) {
+            generator.writeObjectFieldStart("glowRules");
+            writeTuples("added", addedRules);
+            writeTuples("removed", removedRules);
+            generator.writeEndObject();
+        }
+        if (!addedResources.isEmpty() || !removedResources.isEmpty() || !addedAttributes.isEmpty() || !removedAttributes.isEmpty()
+                || !changedAttributes.isEmpty()) {
+            generator.writeObjectFieldStart("managementModel");
+            writeStrings("added", addedResources);
+            writeStrings("removed", removedResources);
+            writeTuples("addedAttributes", addedAttributes);
+            writeTuples("removedAttributes", removedAttributes);
+            writeTuples("changedAttributes", changedAttributes);
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeStrings(String field, List<String> values) throws IOException {
+        if (values.isEmpty()) {
+            return;
+        }
+        generator.writeArrayFieldStart(field);
+        for (String value : values) {
+            generator.writeString(value);
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeTuples(String field, List<Object[]> tuples) throws IOException {
+        if (tuples.isEmpty()) {
+            return;
+        }
+        generator.writeArrayFieldStart(field);
+        for (Object[] tuple : tuples) {
+            generator.writeStartArray();
+            for (Object value : tuple) {
+                if (value instanceof Boolean) {
+                    generator.writeBoolean((Boolean) value);
+                } else {
+                    generator.writeString((String) value);
+                }
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * The layers of the catalog, in catalog order, keyed by name and feature-pack group and artifact id: the same layer
+     * can be defined by multiple feature-packs (WildFly and the cloud feature-pack).
+     */
+    private static Map<String, Layer> layers(JsonNode catalog) {
+        Map<String, Layer> layers = new LinkedHashMap<>();
+        for (JsonNode category : catalog.path("categories")) {
+            for (JsonNode layer : category.path("functionalities")) {
+                String name = layer.path("name").asText();
+                String featurePack = text(layer, "feature-pack");
+                layers.putIfAbsent(name + " " + (featurePack == null ? "" : groupArtifact(featurePack)), new Layer(name, featurePack, layer));
+            }
+        }
+        return layers;
+    }
+
+    private static Map<String, Boolean> dependencies(JsonNode layer) {
+        Map<String, Boolean> dependencies = new LinkedHashMap<>();
+        for (JsonNode dependency : layer.path("dependencies")) {
+            dependencies.put(dependency.path("name").asText(), dependency.path("optional").asBoolean());
+        }
+        return dependencies;
+    }
+
+    private static Map<String, Object[]> glowRules(JsonNode layer) {
+        Map<String, Object[]> rules = new LinkedHashMap<>();
+        for (JsonNode rule : layer.path("glowRules")) {
+            String name = rule.path("name").asText();
+            String value = rule.path("value").asText();
+            rules.put(name + "=" + value, new Object[] {name, value});
+        }
+        return rules;
+    }
+
+    /**
+     * The management model resource addresses and attributes values, keyed by address and attribute name.
+     */
+    private static Model model(JsonNode layer) {
+        Model model = new Model(new LinkedHashSet<>(), new LinkedHashMap<>());
+        JsonNode managementModel = layer.get("managementModel");
+        if (managementModel != null) {
+            addResource(model, "", managementModel);
+        }
+        return model;
+    }
+
+    private static void addResource(Model model, String address, JsonNode resource) {
+        for (Iterator<Entry<String, JsonNode>> it = resource.fields(); it.hasNext();) {
+            Entry<String, JsonNode> field = it.next();
+            if (field.getKey().equals("_address")) {
+                continue;
+            }
+            if (field.getKey().equals("attributes")) {
+                for (JsonNode attribute : field.getValue()) {
+                    JsonNode value = attribute.get("value");
+                    model.attributes().put(address + ATTRIBUTE_SEPARATOR + attribute.path("name").asText(),
+                            value == null ? "" : value.isTextual() ? value.asText() : value.toString());
+                }
+                continue;
+            }
+            for (Iterator<Entry<String, JsonNode>> names = field.getValue().fields(); names.hasNext();) {
+                Entry<String, JsonNode> child = names.next();
+                String childAddress = address + "/" + field.getKey() + "=" + child.getKey();
+                model.resources().add(childAddress);
+                addResource(model, childAddress, child.getValue());
+            }
+        }
+    }
+
+    private static Object[] attribute(String key, String... values) {
+        int i = key.lastIndexOf(ATTRIBUTE_SEPARATOR);
+        Object[] attribute = new Object[values.length + 2];
+        attribute[0] = key.substring(0, i);
+        attribute[1] = key.substring(i + ATTRIBUTE_SEPARATOR.length());
+        System.arraycopy(values, 0, attribute, 2, values.length);
+        return attribute;
+    }
+
+    private static String groupArtifact(String coordinates) {
+        int i = coordinates.lastIndexOf(':');
+        return i < 0 ? coordinates : coordinates.substring(0, i);
+    }
+
+    private static String version(String coordinates) {
+        return coordinates.substring(coordinates.lastIndexOf(':') + 1);
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+}
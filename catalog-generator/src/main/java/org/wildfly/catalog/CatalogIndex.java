@@ -0,0 +1,315 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.wildfly.catalog.Resources.CatalogLayer;
+
+/**
+ * In memory indexes of the layers of one or more generated catalogs, the catalog entries of the layers as computed by
+ * the generation are indexed. Layers are looked-up by name, category, stability,
+ * Glow add-on, feature-pack (with or without version), Glow rule value, Java API (class or package) and deployment
+ * descriptor.
+ * <p>
+ * The Java API index is a trie of the package segments of the {@code org.wildfly.rule.class},
+ * {@code org.wildfly.rule.annotations}, {@code org.wildfly.rule.annotated.type} and
+ * {@code org.wildfly.rule.annotation.field.value*} rule values. A {@code pkg.*} value matches all the names in the
+ * package and its sub packages, other values match the name itself and the classes of the package it names.
+ * <p>
+ * The descriptors index contains the files of the {@code xml-path}, {@code expected-file} and
+ * {@code properties-file-match} rules, {@code *} in a file matches any file name part.
+ */
+public final class CatalogIndex {
+
+    /**
+     * A layer of a catalog.
+     *
+     * @param catalog The catalog description.
+     * @param category The layer category.
+     * @param name The layer name.
+     * @param stability The layer stability.
+     * @param featurePack The feature-pack Maven coordinates.
+     * @param glowAddOn The Glow add-on or null.
+     * @param glowRules The Glow rules name and value.
+     * @param json The layer catalog entry.
+     */
+    public record Layer(String catalog, String category, String name, String stability, String featurePack,
+            String glowAddOn, List<GlowRule> glowRules, ObjectNode json) {
+
+        @Override
+        public String toString() {
+            return category + "/" + name + " (" + featurePack + ")";
+        }
+    }
+
+    public record GlowRule(String name, String value) {}
+
+    private static final String RULE_PREFIX = "org.wildfly.rule.";
+    private static final Set<String> API_RULES = Set.of("class", "annotations");
+    private static final Set<String> FIRST_ELEMENT_API_RULES = Set.of("annotated.type", "annotation.field.value",
+            "annotation.field.value-url", "annotation.field.value-className");
+
+    private static final class ApiNode {
+
+        private final Map<String, ApiNode> children = new HashMap<>();
+        private final List<Layer> exact = new ArrayList<>();
+        private final List<Layer> wildcard = new ArrayList<>();
+    }
+
+    /**
+     * Layers found by a lookup, in the order they are found. Layers are compared by identity.
+     */
+    private static final class Matches {
+
+        private final Set<Layer> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final List<Layer> layers = new ArrayList<>();
+
+        void addAll(List<Layer> found) {
+            for (Layer layer : found) {
+                if (seen.add(layer)) {
+                    layers.add(layer);
+                }
+            }
+        }
+    }
+
+    private final List<Layer> layers = new ArrayList<>();
+    private final Map<String, List<Layer>> byName = new HashMap<>();
+    private final Map<String, List<Layer>> byCategory = new HashMap<>();
+    private final Map<String, List<Layer>> byStability = new HashMap<>();
+    private final Map<String, List<Layer>> byGlowAddOn = new HashMap<>();
+    private final Map<String, List<Layer>> byFeaturePack = new HashMap<>();
+    private final Map<String, List<Layer>> byRuleValue = new HashMap<>();
+    private final Map<String, List<Layer>> byDescriptor = new HashMap<>();
+    private final Map<Pattern, List<Layer>> byDescriptorPattern = new LinkedHashMap<>();
+    private final ApiNode apis = new ApiNode();
+
+    private CatalogIndex() {
+    }
+
+    /**
+     * Load generated catalogs ({@code wildfly-catalog.json} or the binary {@code wildfly-catalog.sml}).
+     *
+     * @param catalogs The catalog files.
+     * @return The index of the catalogs layers.
+     * @throws IOException in case of a failure
+     */
+    public static CatalogIndex load(Path... catalogs) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        CatalogIndex index = new CatalogIndex();
+        for (Path catalog : catalogs) {
+            JsonNode json = catalog.toString().endsWith(BinaryCatalog.EXTENSION) ? BinaryCatalog.read(catalog) : mapper.readTree(catalog.toFile());
+            String description = json.has("description") ? json.get("description").asText() : catalog.toString();
+            for (JsonNode category : json.get("categories")) {
+                String categoryName = category.get("name").asText();
+                for (JsonNode layer : category.get("functionalities")) {
+                    index.add(description, new CatalogLayer(categoryName, layer.get("name").asText(), (ObjectNode) layer));
+                }
+            }
+        }
+        return index;
+    }
+
+    public List<Layer> layers() {
+        return Collections.unmodifiableList(layers);
+    }
+
+    public List<Layer> byName(String name) {
+        return get(byName, name);
+    }
+
+    public List<Layer> byCategory(String category) {
+        return get(byCategory, category);
+    }
+
+    public List<Layer> byStability(String stability) {
+        return get(byStability, stability);
+    }
+
+    public List<Layer> byGlowAddOn(String addOn) {
+        return get(byGlowAddOn, addOn);
+    }
+
+    /**
+     * @param featurePack The feature-pack {@code groupId:artifactId} or {@code groupId:artifactId:version}.
+     */
+    public List<Layer> byFeaturePack(String featurePack) {
+        return get(byFeaturePack, featurePack);
+    }
+
+    /**
+     * @param value A Glow rule value, as found in the catalog.
+     */
+    public List<Layer> byGlowRuleValue(String value) {
+        return get(byRuleValue, value);
+    }
+
+    /**
+     * @param name A class, annotation or package name.
+     * @return The layers with a Glow rule matching the name.
+     */
+    public List<Layer> providingApi(String name) {
+        Matches found = new Matches();
+        ApiNode node = apis;
+        String[] segments = name.split("\\.");
+        for (int i = 0; i < segments.length; i++) {
+            node = node.children.get(segments[i]);
+            if (node == null) {
+                break;
+            }
+            found.addAll(node.wildcard);
+            // The name itself or a class of the package.
+            if (i >= segments.length - 2) {
+                found.addAll(node.exact);
+            }
+        }
+        return found.layers;
+    }
+
+    /**
+     * @param file A deployment file path, for example {@code /WEB-INF/beans.xml}.
+     * @return The layers with a Glow rule expecting the file.
+     */
+    public List<Layer> providingDescriptor(String file) {
+        Matches found = new Matches();
+        found.addAll(get(byDescriptor, file));
+        for (Map.Entry<Pattern, List<Layer>> entry : byDescriptorPattern.entrySet()) {
+            if (entry.getKey().matcher(file).matches()) {
+                found.addAll(entry.getValue());
+            }
+        }
+        return found.layers;
+    }
+
+    private void add(String catalog, CatalogLayer catalogLayer) {
+        ObjectNode json = catalogLayer.layer();
+        List<GlowRule> rules = new ArrayList<>();
+        JsonNode glowRules = json.get("glowRules");
+        if (glowRules != null) {
+            for (JsonNode rule : glowRules) {
+                rules.add(new GlowRule(rule.get("name").asText(), rule.get("value").asText()));
+            }
+        }
+        String featurePack = text(json, "feature-pack");
+        Layer layer = new Layer(catalog, catalogLayer.category(), catalogLayer.name(), text(json, "stability"),
+                featurePack, text(json, "glowAddOn"), List.copyOf(rules), json);
+        layers.add(layer);
+        put(byName, layer.name(), layer);
+        put(byCategory, layer.category(), layer);
+        put(byStability, layer.stability(), layer);
+        put(byGlowAddOn, layer.glowAddOn(), layer);
+        if (featurePack != null) {
+            put(byFeaturePack, featurePack, layer);
+            String[] coords = featurePack.split(":");
+            if (coords.length > 2) {
+                put(byFeaturePack, coords[0] + ":" + coords[1], layer);
+            }
+        }
+        for (GlowRule rule : rules) {
+            put(byRuleValue, rule.value(), layer);
+            if (!rule.name().startsWith(RULE_PREFIX)) {
+                continue;
+            }
+            String kind = rule.name().substring(RULE_PREFIX.length());
+            if (API_RULES.contains(kind)) {
+                for (String api : rule.value().split(",")) {
+                    addApi(api.trim(), layer);
+                }
+            } else if (FIRST_ELEMENT_API_RULES.contains(kind)) {
+                addApi(rule.value().split(",")[0].trim(), layer);
+            } else if (kind.startsWith("xml-path") || kind.contains("expected-file") || kind.startsWith("properties-file-match")) {
+                for (String file : files(rule.value())) {
+                    addDescriptor(file, layer);
+                }
+            }
+        }
+    }
+
+    private void addApi(String api, Layer layer) {
+        if (api.isEmpty()) {
+            return;
+        }
+        boolean wildcard = api.endsWith(".*");
+        String[] segments = (wildcard ? api.substring(0, api.length() - 2) : api).split("\\.");
+        ApiNode node = apis;
+        for (String segment : segments) {
+            node = node.children.computeIfAbsent(segment, k -> new ApiNode());
+        }
+        List<Layer> nodeLayers = wildcard ? node.wildcard : node.exact;
+        // The layer rules are added together, the same value can be in multiple rules of the layer.
+        if (nodeLayers.isEmpty() || nodeLayers.get(nodeLayers.size() - 1) != layer) {
+            nodeLayers.add(layer);
+        }
+    }
+
+    private void addDescriptor(String file, Layer layer) {
+        if (!file.contains("*")) {
+            put(byDescriptor, file, layer);
+            return;
+        }
+        StringBuilder regex = new StringBuilder();
+        String[] parts = file.split("\\*", -1);
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                regex.append("[^/]*");
+            }
+            regex.append(Pattern.quote(parts[i]));
+        }
+        Pattern pattern = Pattern.compile(regex.toString());
+        for (Pattern existing : byDescriptorPattern.keySet()) {
+            if (existing.pattern().equals(pattern.pattern())) {
+                pattern = existing;
+                break;
+            }
+        }
+        byDescriptorPattern.computeIfAbsent(pattern, k -> new ArrayList<>()).add(layer);
+    }
+
+    /**
+     * The files of a rule value, {@code [file1,file2],...} or {@code file,...}.
+     */
+    private static List<String> files(String value) {
+        if (value.startsWith("[")) {
+            int end = value.indexOf(']');
+            if (end > 0) {
+                List<String> files = new ArrayList<>();
+                for (String file : value.substring(1, end).split(",")) {
+                    files.add(file.trim());
+                }
+                return files;
+            }
+        }
+        return List.of(value.split(",")[0].trim());
+    }
+
+    private static String text(JsonNode json, String field) {
+        JsonNode value = json.get(field);
+        return value == null || !value.isTextual() ? null : value.asText();
+    }
+
+    private static void put(Map<String, List<Layer>> index, String key, Layer layer) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new ArrayList<>()).add(layer);
+        }
+    }
+
+    private static List<Layer> get(Map<String, List<Layer>> index, String key) {
+        List<Layer> found = index.get(key);
+        return found == null ? List.of() : Collections.unmodifiableList(found);
+    }
+}
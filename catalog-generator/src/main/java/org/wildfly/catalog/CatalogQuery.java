@@ -0,0 +1,81 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import org.wildfly.catalog.CatalogIndex.Layer;
+
+/**
+ * Batch queries of generated catalogs. The catalogs are passed as arguments, the queries are read from the standard
+ * input, one {@code <kind> <value>} query per line. For each query, the query is printed followed by one line per layer
+ * found.
+ * <p>
+ * Query kinds: {@code layer}, {@code category}, {@code stability}, {@code add-on}, {@code feature-pack},
+ * {@code rule-value}, {@code api} and {@code descriptor}.
+ */
+public class CatalogQuery {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            throw new Exception("Usage: CatalogQuery <wildfly-catalog.json or wildfly-catalog.sml>... < queries");
+        }
+        Path[] catalogs = new Path[args.length];
+        for (int i = 0; i < args.length; i++) {
+            catalogs[i] = Paths.get(args[i]);
+        }
+        CatalogIndex index = CatalogIndex.load(catalogs);
+        System.out.println("Loaded " + index.layers().size() + " layers from " + catalogs.length + " catalogs");
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int i = line.indexOf(' ');
+                if (i < 0) {
+                    throw new Exception("Invalid query " + line + ", expecting <kind> <value>");
+                }
+                String kind = line.substring(0, i);
+                String value = line.substring(i + 1).trim();
+                long start = System.nanoTime();
+                List<Layer> layers = query(index, kind, value);
+                long micros = (System.nanoTime() - start) / 1000;
+                System.out.println(line + ": " + layers.size() + " layers (" + micros + "us)");
+                for (Layer layer : layers) {
+                    System.out.println("  " + layer.catalog() + ": " + layer);
+                }
+            }
+        }
+    }
+
+    private static List<Layer> query(CatalogIndex index, String kind, String value) throws Exception {
+        switch (kind) {
+            case "layer":
+                return index.byName(value);
+            case "category":
+                return index.byCategory(value);
+            case "stability":
+                return index.byStability(value);
+            case "add-on":
+                return index.byGlowAddOn(value);
+            case "feature-pack":
+                return index.byFeaturePack(value);
+            case "rule-value":
+                return index.byGlowRuleValue(value);
+            case "api":
+                return index.providingApi(value);
+            case "descriptor":
+                return index.providingDescriptor(value);
+            default:
+                throw new Exception("Unknown query kind " + kind);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Split a generated catalog in a compact index, loaded by the viewer, and one details shard per layer. The index
+ * contains the whole catalog but the layers management model, configurations and packages that are moved to the layer
+ * shard. The shard location, relative to the index, is set in the layer {@code detailsShard} field.
+ */
+class CatalogShards {
+
+    static final String INDEX = "wildfly-catalog-index.json";
+    static final String SHARDS_DIRECTORY = "wildfly-catalog-layers";
+    private static final List<String> DETAILS = List.of("managementModel", "configurations", "packages");
+
+    /**
+     * @param mapper The mapper.
+     * @param catalog The generated catalog.
+     * @return The index file, written next to the catalog.
+     * @throws IOException in case of a failure
+     */
+    static Path write(ObjectMapper mapper, Path catalog) throws IOException {
+        Path shardsDirectory = catalog.resolveSibling(SHARDS_DIRECTORY);
+        Main.recursiveDelete(shardsDirectory);
+        Files.createDirectories(shardsDirectory);
+        Path index = catalog.resolveSibling(INDEX);
+        int shards = 0;
+        try (JsonParser parser = mapper.createParser(catalog.toFile());
+                JsonGenerator generator = mapper.createGenerator(index.toFile(), JsonEncoding.UTF8)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.FIELD_NAME || !parser.currentName().equals("functionalities")) {
+                    generator.copyCurrentEvent(parser);
+                    continue;
+                }
+                generator.writeFieldName("functionalities");
+                parser.nextToken();
+                generator.writeStartArray();
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    ObjectNode layer = parser.readValueAsTree();
+                    ObjectNode details = mapper.createObjectNode();
+                    for (String field : DETAILS) {
+                        JsonNode value = layer.remove(field);
+                        if (value != null) {
+                            details.set(field, value);
+                        }
+                    }
+                    if (!details.isEmpty()) {
+                        String shard = shards + ".json";
+                        shards += 1;
+                        mapper.writeValue(shardsDirectory.resolve(shard).toFile(), details);
+                        layer.put("detailsShard", SHARDS_DIRECTORY + "/" + shard);
+                    }
+                    generator.writeTree(layer);
+                }
+                generator.writeEndArray();
+            }
+        }
+        System.out.println("Catalog index " + index.getFileName() + " (" + Files.size(index) + " bytes) and " + shards + " layer shards written");
+        return index;
+    }
+}
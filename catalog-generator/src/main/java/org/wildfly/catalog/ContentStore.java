@@ -0,0 +1,101 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content addressed store of the files extracted from the feature-pack doc zips. A file content is stored once,
+ * keyed by its SHA-256, and the files of the catalog are hard links to the stored content. When hard links are not
+ * supported, the stored content is copied.
+ */
+class ContentStore {
+
+    private final Path root;
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong linked = new AtomicLong();
+    private final AtomicLong copied = new AtomicLong();
+    private final AtomicLong bytesDeduplicated = new AtomicLong();
+
+    ContentStore(Path root) throws IOException {
+        this.root = root.toAbsolutePath();
+        Files.createDirectories(this.root);
+    }
+
+    /**
+     * Write the content to the target file, replacing any existing file.
+     *
+     * @param content The file content.
+     * @param target The target file.
+     * @throws IOException in case of a failure
+     */
+    void write(byte[] content, Path target) throws IOException {
+        String hash = hash(content);
+        Path storedFile = root.resolve(hash.substring(0, 2)).resolve(hash);
+        if (Files.exists(storedFile)) {
+            bytesDeduplicated.addAndGet(content.length);
+        } else {
+            Files.createDirectories(storedFile.getParent());
+            // Feature-packs are extracted in parallel, the content is made visible atomically. Not a temporary file,
+            // created with the default permissions as the catalog files are links to it. A link, unlike a move, fails
+            // if another thread stored the same content first.
+            Path tmp = storedFile.resolveSibling(hash + "." + Thread.currentThread().getId() + ".tmp");
+            Files.write(tmp, content);
+            try {
+                publish(tmp, storedFile);
+                stored.incrementAndGet();
+            } catch (FileAlreadyExistsException ex) {
+                bytesDeduplicated.addAndGet(content.length);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        // Never write through an existing link, it would change the stored content.
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, storedFile);
+            linked.incrementAndGet();
+        } catch (UnsupportedOperationException | FileSystemException ex) {
+            Files.copy(storedFile, target, StandardCopyOption.REPLACE_EXISTING);
+            copied.incrementAndGet();
+        }
+    }
+
+    /**
+     * @throws FileAlreadyExistsException if the stored file exists
+     */
+    private static void publish(Path tmp, Path storedFile) throws IOException {
+        try {
+            Files.createLink(storedFile, tmp);
+        } catch (FileAlreadyExistsException ex) {
+            throw ex;
+        } catch (UnsupportedOperationException | FileSystemException ex) {
+            // Without links, not atomic, the move fails if the stored file exists.
+            Files.move(tmp, storedFile);
+        }
+    }
+
+    String stats() {
+        return "Content store " + root + ", stored files: " + stored.get() + ", linked files: " + linked.get()
+                + ", copied files: " + copied.get() + ", deduplicated bytes: " + bytesDeduplicated.get();
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Layer dependency graph of a catalog. Layers are identified by their name, the dependencies of a layer defined in
+ * multiple feature-packs or categories are merged and deduplicated. The graph is built with integer ids, in layer name
+ * order, and bitset adjacency, the transitive dependencies and the transitive dependents (reverse dependencies) of each
+ * layer are then computed once and written as arrays of ids. Optional dependencies are part of the transitive
+ * dependencies, as they are provisioned unless excluded. Dependencies on layers that are not in the catalog are kept.
+ */
+class DependencyGraph {
+
+    static final String FILE = "wildfly-catalog-dependencies.json";
+
+    private final List<String> names;
+    private final BitSet[] dependencies;
+    private final BitSet[] optionalDependencies;
+    private final BitSet[] closure;
+    private final BitSet[] dependents;
+
+    private DependencyGraph(Map<String, List<JsonNode>> layers) {
+        TreeSet<String> allNames = new TreeSet<>(layers.keySet());
+        for (List<JsonNode> deps : layers.values()) {
+            for (JsonNode dep : deps) {
+                allNames.add(dep.get("name").asText());
+            }
+        }
+        names = new ArrayList<>(allNames);
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            ids.put(names.get(i), i);
+        }
+        int size = names.size();
+        dependencies = new BitSet[size];
+        optionalDependencies = new BitSet[size];
+        for (int i = 0; i < size; i++) {
+            dependencies[i] = new BitSet(size);
+            optionalDependencies[i] = new BitSet(size);
+            List<JsonNode> deps = layers.get(names.get(i));
+            if (deps == null) {
+                continue;
+            }
+            BitSet requiredDeps = new BitSet(size);
+            for (JsonNode dep : deps) {
+                int id = ids.get(dep.get("name").asText());
+                dependencies[i].set(id);
+                if (dep.path("optional").asBoolean()) {
+                    optionalDependencies[i].set(id);
+                } else {
+                    requiredDeps.set(id);
+                }
+            }
+            // Optional if optional in all the layer definitions.
+            optionalDependencies[i].andNot(requiredDeps);
+        }
+        closure = transitiveClosure(dependencies);
+        dependents = new BitSet[size];
+        for (int i = 0; i < size; i++) {
+            dependents[i] = new BitSet(size);
+        }
+        for (int i = 0; i < size; i++) {
+            for (int d = closure[i].nextSetBit(0); d >= 0; d = closure[i].nextSetBit(d + 1)) {
+                dependents[d].set(i);
+            }
+        }
+    }
+
+    /**
+     * @param mapper The mapper.
+     * @param catalog The generated catalog.
+     * @return The dependency graph file, written next to the catalog.
+     * @throws IOException in case of a failure
+     */
+    static Path write(ObjectMapper mapper, Path catalog) throws IOException {
+        Map<String, List<JsonNode>> layers = new HashMap<>();
+        try (JsonParser parser = mapper.createParser(catalog.toFile())) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.FIELD_NAME || !parser.currentName().equals("functionalities")) {
+                    continue;
+                }
+                parser.nextToken();
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    String name = null;
+                    List<JsonNode> deps = new ArrayList<>();
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String field = parser.currentName();
+                        parser.nextToken();
+                        if (field.equals("name")) {
+                            name = parser.getText();
+                        } else if (field.equals("dependencies")) {
+                            for (JsonNode dep : (JsonNode) parser.readValueAsTree()) {
+                                deps.add(dep);
+                            }
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    layers.computeIfAbsent(name, k -> new ArrayList<>()).addAll(deps);
+                }
+            }
+        }
+        DependencyGraph graph = new DependencyGraph(layers);
+        Path file = catalog.resolveSibling(FILE);
+        try (JsonGenerator generator = mapper.createGenerator(file.toFile(), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("layers");
+            for (String name : graph.names) {
+                generator.writeString(name);
+            }
+            generator.writeEndArray();
+            writeIds(generator, "dependencies", graph.dependencies);
+            writeIds(generator, "optionalDependencies", graph.optionalDependencies);
+            writeIds(generator, "transitiveDependencies", graph.closure);
+            writeIds(generator, "transitiveDependents", graph.dependents);
+            generator.writeEndObject();
+        }
+        System.out.println("Dependency graph " + file.getFileName() + " (" + graph.names.size() + " layers, " + Files.size(file) + " bytes) written");
+        return file;
+    }
+
+    /**
+     * The transitive closure, iterated until no new dependency is found so that cycles are supported.
+     */
+    private static BitSet[] transitiveClosure(BitSet[] adjacency) {
+        BitSet[] closure = new BitSet[adjacency.length];
+        for (int i = 0; i < adjacency.length; i++) {
+            closure[i] = (BitSet) adjacency[i].clone();
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < closure.length; i++) {
+                int before = closure[i].cardinality();
+                BitSet direct = (BitSet) closure[i].clone();
+                for (int d = direct.nextSetBit(0); d >= 0; d = direct.nextSetBit(d + 1)) {
+                    closure[i].or(closure[d]);
+                }
+                // A layer is not its own dependency.
+                closure[i].clear(i);
+                changed |= closure[i].cardinality() != before;
+            }
+        }
+        return closure;
+    }
+
+    private static void writeIds(JsonGenerator generator, String field, BitSet[] sets) throws IOException {
+        generator.writeArrayFieldStart(field);
+        for (BitSet set : sets) {
+            generator.writeArray(set.stream().toArray(), 0, set.cardinality());
+        }
+        generator.writeEndArray();
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jboss.galleon.universe.maven.repo.MavenRepoManager;
+
+/**
+ * The generator inputs: the HTTP resources (glow rules descriptions, variants and feature-packs lists) and the
+ * feature-pack doc zips. Without a cache directory, inputs are fetched and resolved on each generation. With a cache
+ * directory, inputs are read from the cache and only fetched or resolved when missing. HTTP resources are stored in
+ * {@code http/<host>/<path>}, doc zips in {@code maven/} with the Maven repository layout. In offline mode, no
+ * resolver is used and all inputs must be in the cache, that can be a copy of the cache of a connected machine.
+ * <p>
+ * HTTP resources are only read once per generator run, their content is kept in memory and shared by the generation of
+ * all the WildFly versions.
+ */
+class InputCache {
+
+    private final Path directory;
+    private final MavenRepoManager resolver;
+    private final boolean refresh;
+    private final AtomicLong fetched = new AtomicLong();
+    private final AtomicLong resolved = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final Map<String, FutureTask<byte[]>> responses = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory The cache directory, null to not cache.
+     * @param resolver The Maven resolver, null when offline.
+     * @param refresh true to fetch again the HTTP resources already cached.
+     */
+    InputCache(Path directory, MavenRepoManager resolver, boolean refresh) {
+        this.directory = directory == null ? null : directory.toAbsolutePath();
+        this.resolver = resolver;
+        this.refresh = refresh;
+    }
+
+    boolean isCaching() {
+        return directory != null;
+    }
+
+    InputStream openStream(String url) throws Exception {
+        FutureTask<byte[]> response = new FutureTask<>(() -> read(url));
+        FutureTask<byte[]> existing = responses.putIfAbsent(url, response);
+        if (existing == null) {
+            existing = response;
+        } else {
+            memoryHits.incrementAndGet();
+        }
+        return new ByteArrayInputStream(Main.await(existing));
+    }
+
+    private byte[] read(String url) throws Exception {
+        if (directory == null) {
+            try (InputStream in = new URI(url).toURL().openStream()) {
+                return in.readAllBytes();
+            }
+        }
+        URI uri = new URI(url);
+        Path cached = directory.resolve("http").resolve(uri.getHost()).resolve(uri.getPath().replaceAll("^/+", ""));
+        if (Files.exists(cached) && !refresh) {
+            hits.incrementAndGet();
+        } else {
+            if (resolver == null) {
+                throw new Exception(url + " is not in the input cache " + directory);
+            }
+            try (InputStream in = uri.toURL().openStream()) {
+                store(in, cached);
+            }
+            fetched.incrementAndGet();
+        }
+        return Files.readAllBytes(cached);
+    }
+
+    JsonNode readTree(ObjectMapper mapper, String url) throws Exception {
+        try (InputStream in = openStream(url)) {
+            return mapper.readTree(in);
+        }
+    }
+
+    Path resolve(String groupId, String artifactId, String version, String classifier, String extension) throws Exception {
+        if (directory == null) {
+            return Main.resolveMavenArtifact(resolver, groupId, artifactId, version, classifier, extension);
+        }
+        Path cached = directory.resolve("maven").resolve(groupId.replace('.', '/')).resolve(artifactId).resolve(version)
+                .resolve(artifactId + "-" + version + (classifier == null || classifier.isEmpty() ? "" : "-" + classifier) + "." + extension);
+        // Released artifacts never change, they are not refreshed.
+        if (Files.exists(cached)) {
+            hits.incrementAndGet();
+        } else {
+            if (resolver == null) {
+                throw new Exception(groupId + ":" + artifactId + ":" + version + ":" + classifier + ":" + extension
+                        + " is not in the input cache " + directory);
+            }
+            Path artifact = Main.resolveMavenArtifact(resolver, groupId, artifactId, version, classifier, extension);
+            try (InputStream in = Files.newInputStream(artifact)) {
+                store(in, cached);
+            }
+            resolved.incrementAndGet();
+        }
+        return cached;
+    }
+
+    /**
+     * Fetch the feature-packs lists and resolve the doc zips of all the variants. Feature-packs shared by variants are
+     * resolved once.
+     *
+     * @param featurePacksURLs The feature-packs list of each variant.
+     * @param executor The executor to resolve the doc zips concurrently, null to resolve them one after the other.
+     */
+    void prefetch(ObjectMapper mapper, List<String> featurePacksURLs, ExecutorService executor) throws Exception {
+        List<Future<JsonNode>> lists = new ArrayList<>();
+        for (String url : featurePacksURLs) {
+            lists.add(submit(executor, () -> readTree(mapper, url)));
+        }
+        Set<String> featurePacks = new LinkedHashSet<>();
+        for (Future<JsonNode> list : lists) {
+            for (JsonNode fp : Main.await(list).get("featurePacks")) {
+                featurePacks.add(fp.asText());
+            }
+        }
+        List<Future<Path>> docs = new ArrayList<>();
+        for (String fp : featurePacks) {
+            String[] coords = fp.split(":");
+            docs.add(submit(executor, () -> resolve(coords[0], coords[1], coords[2], "doc", "zip")));
+        }
+        for (Future<Path> doc : docs) {
+            Main.await(doc);
+        }
+        System.out.println("Prefetched " + featurePacks.size() + " feature-packs doc of " + featurePacksURLs.size() + " variants in " + directory);
+    }
+
+    String stats() {
+        return "Input cache " + directory + ": " + hits.get() + " hits, " + memoryHits.get() + " in memory hits, "
+                + fetched.get() + " HTTP resources fetched, " + resolved.get() + " artifacts resolved";
+    }
+
+    private static <T> Future<T> submit(ExecutorService executor, Callable<T> callable) {
+        FutureTask<T> task = new FutureTask<>(callable);
+        if (executor != null) {
+            executor.execute(task);
+        }
+        return task;
+    }
+
+    private static void store(InputStream in, Path cached) throws IOException {
+        Files.createDirectories(cached.getParent());
+        // Inputs can be stored concurrently, the content is made visible atomically.
+        Path tmp = Files.createTempFile(cached.getParent(), cached.getFileName().toString(), ".tmp");
+        try {
+            Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, cached, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (FileAlreadyExistsException ex) {
+            // Stored by another thread.
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
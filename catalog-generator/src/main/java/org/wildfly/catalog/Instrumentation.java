@@ -0,0 +1,280 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Timings and counters of the generation phases, per variant and per feature-pack. Each timed phase is a
+ * {@code org.wildfly.catalog.Phase} JFR event, the model reference lookups of a feature-pack are a
+ * {@code org.wildfly.catalog.ReferenceLookups} event. The events are only recorded when a JFR recording is started
+ * ({@code -XX:StartFlightRecording}). The totals are always kept and written as a JSON report at the end of the
+ * generation.
+ * <p>
+ * Phases are timed in the thread running them, feature-packs are extracted concurrently so the phases time can be
+ * greater than the generation time.
+ */
+class Instrumentation {
+
+    enum Phase {
+        /** count: resources fetched. */
+        HTTP_FETCH("http-fetch"),
+        /** count: artifacts resolved, bytes: artifacts size. */
+        MAVEN_RESOLUTION("maven-resolution"),
+        /** count: zip entries, bytes: extracted bytes. */
+        UNZIP("unzip"),
+        /** count: layers, bytes: metadata.json size. */
+        METADATA_PARSING("metadata-parsing"),
+        /** count: catalog layers (the feature-pack public layers when streaming). */
+        GENERATION("generation"),
+        /** count: lookups, misses: addresses without a reference page, time: lookups time. */
+        MODEL_REFERENCES("model-references"),
+        /** count: catalog, binary catalog and index files, bytes: their size. */
+        JSON_WRITE("json-write"),
+        /** count: viewer and static layer pages, bytes: their size. */
+        VIEWER("viewer");
+
+        private final String id;
+
+        Phase(String id) {
+            this.id = id;
+        }
+    }
+
+    @Name("org.wildfly.catalog.Phase")
+    @Label("Catalog Generation Phase")
+    @Category({"WildFly", "Catalog"})
+    static class PhaseEvent extends Event {
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Variant")
+        String variant;
+
+        @Label("Feature-pack")
+        String featurePack;
+
+        @Label("Count")
+        @Description("Items processed, see the phase")
+        long count;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("org.wildfly.catalog.ReferenceLookups")
+    @Label("Model Reference Lookups")
+    @Category({"WildFly", "Catalog"})
+    static class ReferenceLookupsEvent extends Event {
+
+        @Label("Variant")
+        String variant;
+
+        @Label("Feature-pack")
+        String featurePack;
+
+        @Label("Lookups")
+        long lookups;
+
+        @Label("Misses")
+        long misses;
+
+        @Label("Lookup Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long lookupTime;
+    }
+
+    private record Key(String variant, String featurePack, Phase phase) {}
+
+    private static final class Totals {
+
+        private long calls;
+        private long nanos;
+        private long count;
+        private long bytes;
+        private long misses;
+
+        synchronized void add(long nanos, long count, long bytes, long misses) {
+            this.calls += 1;
+            this.nanos += nanos;
+            this.count += count;
+            this.bytes += bytes;
+            this.misses += misses;
+        }
+
+        synchronized void add(Totals totals) {
+            calls += totals.calls;
+            nanos += totals.nanos;
+            count += totals.count;
+            bytes += totals.bytes;
+            misses += totals.misses;
+        }
+    }
+
+    /**
+     * A started phase.
+     */
+    final class Span {
+
+        private final Key key;
+        private final PhaseEvent event = new PhaseEvent();
+        private final long start = System.nanoTime();
+
+        private Span(Key key) {
+            this.key = key;
+            event.begin();
+        }
+
+        void end() {
+            end(0, 0);
+        }
+
+        void end(long count, long bytes) {
+            long nanos = System.nanoTime() - start;
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = key.phase().id;
+                event.variant = key.variant();
+                event.featurePack = key.featurePack();
+                event.count = count;
+                event.bytes = bytes;
+                event.commit();
+            }
+            totals(key).add(nanos, count, bytes, 0);
+        }
+    }
+
+    private final long start = System.nanoTime();
+    private final Map<Key, Totals> totals = new ConcurrentHashMap<>();
+
+    /**
+     * @param variant The variant directory, null if the phase is not specific to a variant.
+     * @param featurePack The feature-pack Maven coordinates, null if the phase is not specific to a feature-pack.
+     */
+    Span start(Phase phase, String variant, String featurePack) {
+        return new Span(new Key(variant, featurePack, phase));
+    }
+
+    /**
+     * Record the model reference lookups done to generate the catalog and the model index of a feature-pack.
+     */
+    void referenceLookups(String variant, String featurePack, long lookups, long misses, long nanos) {
+        ReferenceLookupsEvent event = new ReferenceLookupsEvent();
+        if (event.shouldCommit()) {
+            event.variant = variant;
+            event.featurePack = featurePack;
+            event.lookups = lookups;
+            event.misses = misses;
+            event.lookupTime = nanos;
+            event.commit();
+        }
+        totals(new Key(variant, featurePack, Phase.MODEL_REFERENCES)).add(nanos, lookups, 0, misses);
+    }
+
+    /**
+     * Print the phases totals and write the report.
+     *
+     * @param mapper The mapper.
+     * @param wildflyVersion The generated WildFly version.
+     * @param report The report file.
+     * @throws IOException in case of a failure
+     */
+    void write(ObjectMapper mapper, String wildflyVersion, Path report) throws IOException {
+        long nanos = System.nanoTime() - start;
+        Map<Phase, Totals> phases = new TreeMap<>();
+        Map<String, Map<Phase, Totals>> variants = new TreeMap<>();
+        Map<String, Map<String, Map<Phase, Totals>>> featurePacks = new TreeMap<>();
+        for (Map.Entry<Key, Totals> entry : totals.entrySet()) {
+            Key key = entry.getKey();
+            Totals value = entry.getValue();
+            phases.computeIfAbsent(key.phase(), k -> new Totals()).add(value);
+            if (key.variant() != null) {
+                variants.computeIfAbsent(key.variant(), k -> new TreeMap<>())
+                        .computeIfAbsent(key.phase(), k -> new Totals()).add(value);
+                if (key.featurePack() != null) {
+                    featurePacks.computeIfAbsent(key.variant(), k -> new TreeMap<>())
+                            .computeIfAbsent(key.featurePack(), k -> new TreeMap<>())
+                            .computeIfAbsent(key.phase(), k -> new Totals()).add(value);
+                }
+            }
+        }
+        Files.createDirectories(report.toAbsolutePath().getParent());
+        try (JsonGenerator generator = mapper.writerWithDefaultPrettyPrinter().createGenerator(report.toFile(), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeStringField("wildflyVersion", wildflyVersion);
+            generator.writeNumberField("timeNanos", nanos);
+            writePhases(generator, phases);
+            generator.writeArrayFieldStart("variants");
+            for (Map.Entry<String, Map<Phase, Totals>> variant : variants.entrySet()) {
+                generator.writeStartObject();
+                generator.writeStringField("variant", variant.getKey());
+                writePhases(generator, variant.getValue());
+                generator.writeArrayFieldStart("featurePacks");
+                for (Map.Entry<String, Map<Phase, Totals>> fp : featurePacks.getOrDefault(variant.getKey(), Map.of()).entrySet()) {
+                    generator.writeStartObject();
+                    generator.writeStringField("featurePack", fp.getKey());
+                    writePhases(generator, fp.getValue());
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        System.out.println("Generation of WildFly " + wildflyVersion + " in " + nanos / 1_000_000 + "ms, phases:");
+        for (Map.Entry<Phase, Totals> phase : phases.entrySet()) {
+            Totals t = phase.getValue();
+            System.out.println(String.format("  %-18s %6d calls %8dms count: %d, bytes: %d, misses: %d", phase.getKey().id,
+                    t.calls, t.nanos / 1_000_000, t.count, t.bytes, t.misses));
+        }
+        System.out.println("Generation report written to " + report);
+    }
+
+    private Totals totals(Key key) {
+        return totals.computeIfAbsent(key, k -> new Totals());
+    }
+
+    private static void writePhases(JsonGenerator generator, Map<Phase, Totals> phases) throws IOException {
+        generator.writeArrayFieldStart("phases");
+        for (Map.Entry<Phase, Totals> phase : phases.entrySet()) {
+            Totals t = phase.getValue();
+            generator.writeStartObject();
+            generator.writeStringField("phase", phase.getKey().id);
+            generator.writeNumberField("calls", t.calls);
+            generator.writeNumberField("timeNanos", t.nanos);
+            generator.writeNumberField("count", t.count);
+            generator.writeNumberField("bytes", t.bytes);
+            generator.writeNumberField("misses", t.misses);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+}
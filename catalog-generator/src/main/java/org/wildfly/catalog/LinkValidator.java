@@ -0,0 +1,347 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Validation of the relative links of generated catalogs: the {@code href} and {@code src} attributes of the HTML
+ * pages (the viewers, the static pages and the extracted feature-pack documentation) and the
+ * {@code modelReference}, {@code logMessagesReference} and {@code _address} URLs of the {@code wildfly-catalog.json}
+ * catalogs. A link is broken when its target file doesn't exist or, for a link with a fragment to an HTML page, when
+ * the page has no element with this {@code id} (or anchor with this {@code name}).
+ * <p>
+ * Files are scanned in parallel, the pages are tokenized, the content of the scripts is ignored. The files and
+ * anchors of the validated directories are indexed, links to files out of the validated directories are only checked
+ * for existence. External links (with a scheme) are not checked.
+ */
+public final class LinkValidator {
+
+    private static final String JSON_CATALOG = "wildfly-catalog.json";
+    private static final String LEGEND = "legend";
+    private static final Set<String> JSON_LINKS = Set.of("modelReference", "logMessagesReference", "_address");
+    private static final Pattern SCHEME = Pattern.compile("^[a-zA-Z][a-zA-Z0-9+.-]*:");
+    private static final int PRINTED_BROKEN_LINKS = 20;
+
+    record BrokenLink(String file, String link, String reason) {}
+
+    record Result(int files, long links, List<BrokenLink> brokenLinks) {}
+
+    private record Scan(Path file, Set<String> anchors, List<String> links) {}
+
+    private LinkValidator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            throw new Exception("Usage: LinkValidator <directory or file>...");
+        }
+        List<Path> paths = new ArrayList<>();
+        for (String arg : args) {
+            paths.add(Paths.get(arg));
+        }
+        Result result = validate(new ObjectMapper(), paths, Runtime.getRuntime().availableProcessors(), null);
+        if (!result.brokenLinks().isEmpty()) {
+            throw new Exception(result.brokenLinks().size() + " broken links found");
+        }
+    }
+
+    /**
+     * @param mapper The mapper.
+     * @param paths The directories and files to validate.
+     * @param threads The number of files scanned in parallel.
+     * @param report The file to write the broken links to, null to only print them.
+     * @return The validation result.
+     * @throws Exception in case of a failure
+     */
+    static Result validate(ObjectMapper mapper, List<Path> paths, int threads, Path report) throws Exception {
+        long start = System.nanoTime();
+        List<Path> files = new ArrayList<>();
+        Set<Path> indexed = new HashSet<>();
+        for (Path path : paths) {
+            try (Stream<Path> walk = Files.walk(path)) {
+                walk.filter(Files::isRegularFile).sorted().forEach(file -> {
+                    indexed.add(file.toAbsolutePath().normalize());
+                    if (isValidated(file)) {
+                        files.add(file);
+                    }
+                });
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<BrokenLink> brokenLinks = new ArrayList<>();
+        long links = 0;
+        try {
+            List<Future<Scan>> scans = new ArrayList<>();
+            for (Path file : files) {
+                scans.add(executor.submit(() -> scan(mapper, file)));
+            }
+            Map<Path, Set<String>> anchors = new HashMap<>();
+            List<Scan> scanned = new ArrayList<>();
+            for (Future<Scan> future : scans) {
+                Scan scan = Main.await(future);
+                scanned.add(scan);
+                links += scan.links().size();
+                if (scan.anchors() != null) {
+                    anchors.put(scan.file().toAbsolutePath().normalize(), scan.anchors());
+                }
+            }
+            List<Future<List<BrokenLink>>> checks = new ArrayList<>();
+            for (Scan scan : scanned) {
+                checks.add(executor.submit(() -> check(scan, indexed, anchors)));
+            }
+            for (Future<List<BrokenLink>> future : checks) {
+                brokenLinks.addAll(Main.await(future));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Result result = new Result(files.size(), links, brokenLinks);
+        System.out.println("Links validation of " + files.size() + " files: " + links + " links, " + brokenLinks.size()
+                + " broken links (" + (System.nanoTime() - start) / 1_000_000 + "ms)");
+        for (BrokenLink broken : brokenLinks.subList(0, Math.min(PRINTED_BROKEN_LINKS, brokenLinks.size()))) {
+            System.out.println("  " + broken.file() + ": " + broken.link() + " (" + broken.reason() + ")");
+        }
+        if (report != null) {
+            write(mapper, result, report);
+        } else if (brokenLinks.size() > PRINTED_BROKEN_LINKS) {
+            System.out.println("  ...");
+        }
+        return result;
+    }
+
+    private static boolean isValidated(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".html") || name.equals(JSON_CATALOG);
+    }
+
+    private static Scan scan(ObjectMapper mapper, Path file) throws IOException {
+        List<String> links = new ArrayList<>();
+        if (file.getFileName().toString().equals(JSON_CATALOG)) {
+            try (JsonParser parser = mapper.createParser(file.toFile())) {
+                JsonToken token;
+                while ((token = parser.nextToken()) != null) {
+                    if (token != JsonToken.FIELD_NAME) {
+                        continue;
+                    }
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    if (field.equals(LEGEND)) {
+                        // The legend describes the fields
+                        parser.skipChildren();
+                    } else if (JSON_LINKS.contains(field) && parser.currentToken() == JsonToken.VALUE_STRING) {
+                        links.add(parser.getText());
+                    }
+                }
+            }
+            return new Scan(file, null, links);
+        }
+        Set<String> anchors = new HashSet<>();
+        scanHtml(Files.readAllBytes(file), anchors, links);
+        return new Scan(file, anchors, links);
+    }
+
+    /**
+     * Collect the {@code href} and {@code src} attributes and the {@code id} and {@code name} attributes of the tags of
+     * a page. The page bytes are tokenized in a single pass, only the collected values are decoded.
+     */
+    private static void scanHtml(byte[] content, Set<String> anchors, List<String> links) {
+        int length = content.length;
+        int i = 0;
+        while ((i = indexOf(content, "<", i)) >= 0) {
+            i += 1;
+            if (startsWith(content, i, "!--")) {
+                i = indexOf(content, "-->", i);
+                if (i < 0) {
+                    return;
+                }
+                continue;
+            }
+            int nameStart = i;
+            while (i < length && !isSpace(content[i]) && content[i] != '>' && content[i] != '/') {
+                i += 1;
+            }
+            boolean script = i - nameStart == 6 && startsWith(content, nameStart, "script");
+            while (i < length && content[i] != '>') {
+                if (isSpace(content[i]) || content[i] == '/') {
+                    i += 1;
+                    continue;
+                }
+                int attributeStart = i;
+                while (i < length && !isSpace(content[i]) && content[i] != '=' && content[i] != '>') {
+                    i += 1;
+                }
+                int attributeEnd = i;
+                while (i < length && isSpace(content[i])) {
+                    i += 1;
+                }
+                if (i >= length || content[i] != '=') {
+                    continue;
+                }
+                i += 1;
+                while (i < length && isSpace(content[i])) {
+                    i += 1;
+                }
+                int valueStart = i;
+                int valueEnd;
+                if (i < length && (content[i] == '"' || content[i] == '\'')) {
+                    byte quote = content[i];
+                    valueStart = i + 1;
+                    i = valueStart;
+                    while (i < length && content[i] != quote) {
+                        i += 1;
+                    }
+                    valueEnd = i;
+                    i += 1;
+                } else {
+                    while (i < length && !isSpace(content[i]) && content[i] != '>') {
+                        i += 1;
+                    }
+                    valueEnd = Math.min(i, length);
+                }
+                int attributeLength = attributeEnd - attributeStart;
+                if ((attributeLength == 4 && startsWith(content, attributeStart, "href"))
+                        || (attributeLength == 3 && startsWith(content, attributeStart, "src"))) {
+                    links.add(unescape(new String(content, valueStart, valueEnd - valueStart, UTF_8)));
+                } else if ((attributeLength == 2 && startsWith(content, attributeStart, "id"))
+                        || (attributeLength == 4 && startsWith(content, attributeStart, "name"))) {
+                    anchors.add(unescape(new String(content, valueStart, valueEnd - valueStart, UTF_8)));
+                }
+            }
+            if (script) {
+                i = indexOf(content, "</script", i);
+                if (i < 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static int indexOf(byte[] content, String value, int from) {
+        byte first = (byte) value.charAt(0);
+        for (int i = from; i <= content.length - value.length(); i++) {
+            if (content[i] == first && startsWith(content, i, value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Case insensitive match of an ASCII value.
+     */
+    private static boolean startsWith(byte[] content, int offset, String value) {
+        if (offset + value.length() > content.length) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.toLowerCase(content[offset + i]) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\n' || b == '\t' || b == '\r' || b == '\f';
+    }
+
+    private static String unescape(String value) {
+        return value.indexOf('&') < 0 ? value : value.replace("&quot;", "\"").replace("&#39;", "'").replace("&lt;", "<")
+                .replace("&gt;", ">").replace("&amp;", "&");
+    }
+
+    private static List<BrokenLink> check(Scan scan, Set<Path> indexed, Map<Path, Set<String>> anchors) {
+        List<BrokenLink> brokenLinks = new ArrayList<>();
+        Path directory = scan.file().toAbsolutePath().normalize().getParent();
+        // A broken link is reported once per file.
+        for (String link : new LinkedHashSet<>(scan.links())) {
+            if (link.isEmpty() || link.startsWith("//") || SCHEME.matcher(link).find()) {
+                continue;
+            }
+            int fragmentIndex = link.indexOf('#');
+            String fragment = fragmentIndex < 0 ? null : decode(link.substring(fragmentIndex + 1));
+            String path = fragmentIndex < 0 ? link : link.substring(0, fragmentIndex);
+            int queryIndex = path.indexOf('?');
+            if (queryIndex >= 0) {
+                path = path.substring(0, queryIndex);
+            }
+            Path target;
+            if (path.isEmpty()) {
+                target = scan.file().toAbsolutePath().normalize();
+            } else {
+                target = directory.resolve(decode(path)).normalize();
+                if (path.endsWith("/") || (!indexed.contains(target) && Files.isDirectory(target))) {
+                    target = target.resolve("index.html");
+                }
+                if (!indexed.contains(target) && !Files.isRegularFile(target)) {
+                    brokenLinks.add(new BrokenLink(scan.file().toString(), link, "file not found"));
+                    continue;
+                }
+            }
+            if (fragment != null && !fragment.isEmpty()) {
+                Set<String> targetAnchors = anchors.get(target);
+                if (targetAnchors != null && !targetAnchors.contains(fragment)) {
+                    brokenLinks.add(new BrokenLink(scan.file().toString(), link, "anchor not found"));
+                }
+            }
+        }
+        return brokenLinks;
+    }
+
+    private static String decode(String value) {
+        if (value.indexOf('%') < 0) {
+            return value;
+        }
+        try {
+            return URLDecoder.decode(value.replace("+", "%2B"), UTF_8);
+        } catch (IllegalArgumentException ex) {
+            return value;
+        }
+    }
+
+    private static void write(ObjectMapper mapper, Result result, Path report) throws IOException {
+        Files.createDirectories(report.toAbsolutePath().getParent());
+        try (JsonGenerator generator = mapper.writerWithDefaultPrettyPrinter().createGenerator(report.toFile(), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeNumberField("files", result.files());
+            generator.writeNumberField("links", result.links());
+            generator.writeArrayFieldStart("brokenLinks");
+            for (BrokenLink broken : result.brokenLinks()) {
+                generator.writeStartObject();
+                generator.writeStringField("file", broken.file());
+                generator.writeStringField("link", broken.link());
+                generator.writeStringField("reason", broken.reason());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        System.out.println("Links report written to " + report);
+    }
+}
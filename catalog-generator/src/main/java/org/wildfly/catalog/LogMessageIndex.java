@@ -0,0 +1,193 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Index of the feature-packs log and exception messages, parsed from the {@code doc/log-message-reference.html} pages
+ * at generation time, so that a message can be looked up without loading the reference pages (the WildFly one is a
+ * few MB). The messages are grouped by project code (the message id without its number, for example
+ * {@code WFLYCTL}), one compact JSON shard per code in {@link #SHARDS_DIRECTORY}:
+ * <pre>
+ * [[id, level, return type, message, reference], ...]
+ * </pre>
+ * sorted by id, reference being the index of the reference page of the message in the {@link #FILE} index. The index
+ * lists the codes with their shard and number of messages. Identical messages are only kept once, an id can have
+ * multiple messages. The {@link #PAGE} lookup page loads the index, then the shard of the looked-up code.
+ */
+class LogMessageIndex {
+
+    static final String FILE = "wildfly-catalog-log-messages.json";
+    static final String SHARDS_DIRECTORY = "wildfly-catalog-log-messages";
+    static final String PAGE = "log-messages.html";
+    static final String REFERENCE_PAGE = "doc/log-message-reference.html";
+
+    /**
+     * @param featurePack The feature-pack maven coordinates.
+     * @param reference The reference page location, relative to the catalog.
+     * @param page The reference page.
+     */
+    record ReferencePage(String featurePack, String reference, Path page) {}
+
+    record Message(String id, String level, String returnType, String message, int reference) {}
+
+    record Code(String code, String shard, int messages) {}
+
+    /**
+     * @param mapper The mapper.
+     * @param catalog The generated catalog.
+     * @param pages The reference pages of the catalog feature-packs, in the feature-packs order.
+     * @return The index file, written next to the catalog, null if the feature-packs have no reference page.
+     * @throws IOException in case of a failure
+     */
+    static Path write(ObjectMapper mapper, Path catalog, List<ReferencePage> pages) throws IOException {
+        long start = System.nanoTime();
+        Path shardsDirectory = catalog.resolveSibling(SHARDS_DIRECTORY);
+        Path index = catalog.resolveSibling(FILE);
+        Main.recursiveDelete(shardsDirectory);
+        Files.deleteIfExists(index);
+        if (pages.isEmpty()) {
+            return null;
+        }
+        Map<String, Set<Message>> codes = new TreeMap<>();
+        long bytes = 0;
+        for (int i = 0; i < pages.size(); i++) {
+            byte[] content = Files.readAllBytes(pages.get(i).page());
+            bytes += content.length;
+            parse(new String(content, StandardCharsets.UTF_8), i, codes);
+        }
+        Files.createDirectories(shardsDirectory);
+        List<Code> written = new ArrayList<>();
+        int messages = 0;
+        for (Map.Entry<String, Set<Message>> entry : codes.entrySet()) {
+            List<Message> sorted = new ArrayList<>(entry.getValue());
+            sorted.sort(Comparator.comparing(Message::id));
+            String shard = StaticPages.sanitizeForId(entry.getKey()) + ".json";
+            try (JsonGenerator generator = mapper.createGenerator(shardsDirectory.resolve(shard).toFile(), JsonEncoding.UTF8)) {
+                generator.writeStartArray();
+                for (Message message : sorted) {
+                    generator.writeStartArray();
+                    generator.writeString(message.id());
+                    generator.writeString(message.level());
+                    generator.writeString(message.returnType());
+                    generator.writeString(message.message());
+                    generator.writeNumber(message.reference());
+                    generator.writeEndArray();
+                }
+                generator.writeEndArray();
+            }
+            written.add(new Code(entry.getKey(), SHARDS_DIRECTORY + "/" + shard, sorted.size()));
+            messages += sorted.size();
+        }
+        try (JsonGenerator generator = mapper.createGenerator(index.toFile(), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("references");
+            for (ReferencePage page : pages) {
+                generator.writeStartObject();
+                generator.writeStringField("featurePack", page.featurePack());
+                generator.writeStringField("reference", page.reference());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeObjectFieldStart("codes");
+            for (Code code : written) {
+                generator.writeObjectFieldStart(code.code());
+                generator.writeStringField("shard", code.shard());
+                generator.writeNumberField("messages", code.messages());
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+        System.out.println("Log messages index of " + messages + " messages in " + written.size() + " codes parsed from " + pages.size()
+                + " reference pages (" + bytes + " bytes) in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        return index;
+    }
+
+    /**
+     * The reference page is a table per code ({@code <h2 id="code">}), one row per message ({@code <tr id="message id">})
+     * with the code, level, return type and message cells. Messages are not escaped and can span multiple lines. The
+     * cells missing in a row are empty, the rows without id are skipped.
+     */
+    static void parse(String html, int reference, Map<String, Set<Message>> codes) {
+        String code = null;
+        int position = 0;
+        // Only searched again once passed, there are far less sections than rows.
+        int section = html.indexOf("<h2 id=\"");
+        while (true) {
+            int row = html.indexOf("<tr id=\"", position);
+            if (row < 0) {
+                return;
+            }
+            if (section >= 0 && section < row) {
+                int end = html.indexOf('"', section + 8);
+                code = html.substring(section + 8, end);
+                position = end;
+                section = html.indexOf("<h2 id=\"", position);
+                continue;
+            }
+            int idEnd = html.indexOf('"', row + 8);
+            if (idEnd < 0) {
+                return;
+            }
+            String id = html.substring(row + 8, idEnd);
+            int rowEnd = html.indexOf("</tr>", idEnd);
+            if (rowEnd < 0) {
+                rowEnd = html.length();
+            }
+            if (id.isEmpty()) {
+                // Can't be looked up.
+                position = rowEnd;
+                continue;
+            }
+            String[] cells = new String[4];
+            position = idEnd;
+            for (int i = 0; i < cells.length; i++) {
+                int cell = html.indexOf("<td>", position);
+                int cellEnd = cell < 0 || cell > rowEnd ? -1 : html.indexOf("</td>", cell);
+                if (cellEnd < 0 || cellEnd > rowEnd) {
+                    // Never read the cells of the next row.
+                    cells[i] = "";
+                    continue;
+                }
+                cells[i] = unescape(html.substring(cell + 4, cellEnd).trim());
+                position = cellEnd + 5;
+            }
+            position = rowEnd;
+            codes.computeIfAbsent(code == null ? codeOf(id) : code, c -> new LinkedHashSet<>())
+                    .add(new Message(id, cells[1], cells[2], cells[3], reference));
+        }
+    }
+
+    private static String codeOf(String id) {
+        int end = id.length();
+        while (end > 0 && Character.isDigit(id.charAt(end - 1))) {
+            end -= 1;
+        }
+        return id.substring(0, end);
+    }
+
+    static String unescape(String text) {
+        if (text.indexOf('&') < 0) {
+            return text;
+        }
+        return text.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&#39;", "'")
+                .replace("&nbsp;", " ").replace("&amp;", "&");
+    }
+}
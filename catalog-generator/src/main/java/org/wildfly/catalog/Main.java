@@ -9,37 +9,44 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.io.BufferedReader;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.URI;
-import java.net.URL;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
-import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
-import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
-import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.TreeMap;
 import java.util.TreeSet;
-import java.util.stream.Collectors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.jboss.galleon.universe.maven.MavenArtifact;
 import org.jboss.galleon.universe.maven.repo.MavenRepoManager;
+import org.wildfly.catalog.Resources.CatalogLayer;
+import org.wildfly.catalog.Resources.FeaturePackDoc;
+import org.wildfly.catalog.Resources.GenerationOptions;
 import org.wildfly.catalog.Resources.Variant;
 import static org.wildfly.catalog.TemplateUtils.ENGINE;
 import org.wildfly.glow.maven.MavenResolver;
@@ -48,31 +55,292 @@ public class Main {
 
     private static final String VERSION_PROP = "wildfly-version";
     private static final String RELEASE_PROP = "release";
+    private static final String THREADS_PROP = "threads";
+    private static final String CONTENT_STORE_PROP = "content-store";
+    private static final String EXTRACTION_THREADS_PROP = "extraction-threads";
+    private static final String INCREMENTAL_PROP = "incremental";
+    private static final String STREAMING_PROP = "streaming";
+    private static final String SHARDED_PROP = "sharded";
+    private static final String INPUT_CACHE_PROP = "input-cache";
+    private static final String OFFLINE_PROP = "offline";
+    private static final String PREFETCH_PROP = "prefetch";
+    private static final String MINIFY_PROP = "minify";
+    private static final String PRECOMPRESS_PROP = "precompress";
+    private static final String PRECOMPRESS_THRESHOLD_PROP = "precompress-threshold";
+    private static final String BINARY_PROP = "binary";
+    private static final String GENERATION_REPORT_PROP = "generation-report";
+    private static final String VERSIONS_FILE_PROP = "wildfly-versions-file";
+    private static final String BATCH_THREADS_PROP = "batch-threads";
+    private static final String VALIDATE_LINKS_PROP = "validate-links";
+    private static final String FAIL_ON_BROKEN_LINKS_PROP = "fail-on-broken-links";
+    private static final String PREVIEW_PROP = "preview";
+    private static final String PREVIEW_PORT_PROP = "preview-port";
+    private static final String FINGERPRINT_PROP = "fingerprint-assets";
+    private static final String SERVICE_WORKER_PROP = "service-worker";
+    private static final String DIFF_PROP = "diff";
+    private static final String DIFF_DIRECTORY_PROP = "diff-directory";
+    private static final String DIFF_PREVIOUS_PROP = "diff-previous";
     private static final String DEFAULT_VARIANT = "default";
     private static final String REPLACE_WILDFLY_VERSION = "###REPLACE_WILDFLY_VERSION###";
-    private static final String REPLACE_JSON_URL = "###REPLACE_JSON_URL###";
-    private static final String REPLACE_LATEST_INDEX_ENTRY = "<!-- ####REPLACE_LAST_VERSION#### -->";
-    private static final String REPLACE_WILDFLY_VARIANT = "###VARIANT_DESCRIPTION###";
+    private static final String SERVICE_WORKER = "wildfly-catalog-sw.js";
+    private static final Pattern INDEX_ENTRY = Pattern.compile("<li><a href=\"([^\"]+)/index.html\">");
     public static void main(String[] args) throws Exception {
-        String wildflyVersion = System.getProperty(VERSION_PROP);
-        if (wildflyVersion == null) {
-            throw new Exception("-D" + VERSION_PROP + "=<version> must be set");
+        List<String> wildflyVersions = wildflyVersions();
+        String inputCacheDir = System.getProperty(INPUT_CACHE_PROP);
+        boolean offline = Boolean.getBoolean(OFFLINE_PROP);
+        boolean prefetchOnly = Boolean.getBoolean(PREFETCH_PROP);
+        if ((offline || prefetchOnly) && inputCacheDir == null) {
+            throw new Exception("-D" + INPUT_CACHE_PROP + "=<directory> must be set with -D" + (offline ? OFFLINE_PROP : PREFETCH_PROP));
         }
-        MavenRepoManager resolver = MavenResolver.newMavenResolver();
+        if (offline && prefetchOnly) {
+            throw new Exception("-D" + OFFLINE_PROP + " and -D" + PREFETCH_PROP + " can't be combined");
+        }
+        // Offline, all the inputs are read from the input cache.
+        MavenRepoManager resolver = offline ? null : MavenResolver.newMavenResolver();
+        InputCache inputs = new InputCache(inputCacheDir == null ? null : Paths.get(inputCacheDir), resolver, prefetchOnly);
         boolean release = Boolean.getBoolean(RELEASE_PROP);
         Path rootDirectory = release ? Paths.get("../docs") : Paths.get("target/catalog");
-        Path wildflyVersionDirectory = rootDirectory.resolve(wildflyVersion);
         ObjectMapper mapper = new ObjectMapper();
-        JsonNode node = mapper.readTree(String.join("", patchFile("wildfly-catalog-metadata.json", wildflyVersion, null, release, null, null)));
+        int threads = Integer.getInteger(THREADS_PROP, Runtime.getRuntime().availableProcessors());
+        if (threads < 1) {
+            throw new Exception("-D" + THREADS_PROP + " must be greater than 0");
+        }
+        boolean incremental = Boolean.getBoolean(INCREMENTAL_PROP);
+        boolean streaming = Boolean.getBoolean(STREAMING_PROP);
+        if (incremental && streaming) {
+            throw new Exception("-D" + INCREMENTAL_PROP + " and -D" + STREAMING_PROP + " can't be combined");
+        }
+        boolean preview = Boolean.getBoolean(PREVIEW_PROP);
+        if (preview) {
+            for (String prop : List.of(RELEASE_PROP, INCREMENTAL_PROP, PREFETCH_PROP, VALIDATE_LINKS_PROP, FAIL_ON_BROKEN_LINKS_PROP, FINGERPRINT_PROP)) {
+                if (Boolean.getBoolean(prop)) {
+                    throw new Exception("-D" + PREVIEW_PROP + " and -D" + prop + " can't be combined");
+                }
+            }
+        }
+        boolean fingerprint = Boolean.getBoolean(FINGERPRINT_PROP);
+        boolean serviceWorker = Boolean.getBoolean(SERVICE_WORKER_PROP);
+        if (serviceWorker && !fingerprint) {
+            throw new Exception("-D" + SERVICE_WORKER_PROP + " requires -D" + FINGERPRINT_PROP);
+        }
+        GenerationOptions options = new GenerationOptions(release, prefetchOnly, threads, incremental, streaming,
+                Boolean.parseBoolean(System.getProperty(SHARDED_PROP, "true")), Boolean.getBoolean(MINIFY_PROP),
+                Boolean.getBoolean(BINARY_PROP), Boolean.getBoolean(PRECOMPRESS_PROP), Long.getLong(PRECOMPRESS_THRESHOLD_PROP, 1024),
+                fingerprint, serviceWorker);
+        int extractionThreads = Integer.getInteger(EXTRACTION_THREADS_PROP, 1);
+        if (extractionThreads < 1) {
+            throw new Exception("-D" + EXTRACTION_THREADS_PROP + " must be greater than 0");
+        }
+        int batchThreads = Integer.getInteger(BATCH_THREADS_PROP, Math.min(wildflyVersions.size(), threads));
+        if (batchThreads < 1) {
+            throw new Exception("-D" + BATCH_THREADS_PROP + " must be greater than 0");
+        }
+        String contentStoreDir = System.getProperty(CONTENT_STORE_PROP);
+        ContentStore contentStore = contentStoreDir == null ? null : new ContentStore(Paths.get(contentStoreDir));
+        // With a single thread, feature-packs are resolved and extracted lazily, when they are processed.
+        ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        // The files of a doc zip are written in parallel by a dedicated executor, the feature-packs extraction waits for them.
+        ExecutorService writers = extractionThreads > 1 ? Executors.newFixedThreadPool(extractionThreads) : null;
+        ZipExtractor extractor = new ZipExtractor(contentStore, writers, extractionThreads);
+        // The WildFly versions are generated concurrently, the inputs, the extractions and the executors are shared.
+        ExecutorService versionsExecutor = batchThreads > 1 ? Executors.newFixedThreadPool(batchThreads) : null;
+        // In preview, the doc zips are mounted instead of being extracted.
+        PreviewServer previewServer = preview ? new PreviewServer() : null;
+        Path diffDirectory = Paths.get(System.getProperty(DIFF_DIRECTORY_PROP, "../docs"));
+        boolean diff = Boolean.parseBoolean(System.getProperty(DIFF_PROP, "true"));
+        Map<String, String> previousVersions = diff ? previousVersions(wildflyVersions, diffDirectory) : Map.of();
+        try {
+            Map<String, Future<Void>> generations = new LinkedHashMap<>();
+            for (String wildflyVersion : wildflyVersions) {
+                Path generationReport = generationReport(wildflyVersion, wildflyVersions.size() > 1);
+                CatalogDiff.Previous previous = diff ? previous(wildflyVersion, previousVersions.get(wildflyVersion), wildflyVersions,
+                        generations, rootDirectory, diffDirectory) : null;
+                FutureTask<Void> generation = new FutureTask<>(() -> {
+                    generate(wildflyVersion, rootDirectory, options, mapper, inputs, executor, extractor, previewServer, previous, generationReport);
+                    return null;
+                });
+                if (versionsExecutor != null) {
+                    versionsExecutor.execute(generation);
+                }
+                generations.put(wildflyVersion, generation);
+            }
+            for (Future<Void> generation : generations.values()) {
+                await(generation);
+            }
+        } finally {
+            if (versionsExecutor != null) {
+                versionsExecutor.shutdownNow();
+            }
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+            if (writers != null) {
+                writers.shutdownNow();
+            }
+        }
+        if (prefetchOnly) {
+            System.out.println(inputs.stats());
+            return;
+        }
+        if (contentStore != null) {
+            System.out.println(contentStore.stats());
+        }
+        if (inputs.isCaching()) {
+            System.out.println(inputs.stats());
+        }
+        if (release) {
+            updateIndex(rootDirectory, wildflyVersions);
+        }
+        boolean failOnBrokenLinks = Boolean.getBoolean(FAIL_ON_BROKEN_LINKS_PROP);
+        if (failOnBrokenLinks || Boolean.getBoolean(VALIDATE_LINKS_PROP)) {
+            // Only the generated versions are validated, links to the other versions are checked for existence.
+            List<Path> generated = new ArrayList<>();
+            for (String wildflyVersion : wildflyVersions) {
+                generated.add(rootDirectory.resolve(wildflyVersion));
+            }
+            if (release) {
+                generated.add(rootDirectory.resolve("index.html"));
+            }
+            Path linksReport = Paths.get("target/wildfly-catalog-links.json");
+            LinkValidator.Result result = LinkValidator.validate(mapper, generated, threads, linksReport);
+            if (failOnBrokenLinks && !result.brokenLinks().isEmpty()) {
+                throw new Exception(result.brokenLinks().size() + " broken links found in the generated catalog, see " + linksReport
+                        + ". Use -D" + VALIDATE_LINKS_PROP + " instead of -D" + FAIL_ON_BROKEN_LINKS_PROP + " to only report them");
+            }
+        }
+        System.out.println("Catalog has been generated in " + rootDirectory.toAbsolutePath());
+        System.out.println("Peak heap usage: " + (peakHeapUsage() / (1024 * 1024)) + "MB");
+        if (previewServer != null) {
+            previewServer.start(rootDirectory, wildflyVersions, Integer.getInteger(PREVIEW_PORT_PROP, 8080), threads);
+        }
+    }
+
+    /**
+     * @return The versions to generate, from {@code -Dwildfly-version} (comma separated) or, when not set, from the
+     * file set with {@code -Dwildfly-versions-file} (one version per line).
+     */
+    private static List<String> wildflyVersions() throws Exception {
+        String versions = System.getProperty(VERSION_PROP);
+        String versionsFile = System.getProperty(VERSIONS_FILE_PROP);
+        List<String> wildflyVersions = new ArrayList<>();
+        if (versions != null) {
+            for (String version : versions.split(",")) {
+                wildflyVersions.add(version.trim());
+            }
+        } else if (versionsFile != null) {
+            wildflyVersions.addAll(Files.readAllLines(Paths.get(versionsFile)));
+        } else {
+            throw new Exception("-D" + VERSION_PROP + "=<version> or -D" + VERSIONS_FILE_PROP + "=<file> must be set");
+        }
+        wildflyVersions.replaceAll(String::trim);
+        wildflyVersions.removeIf(version -> version.isEmpty() || version.startsWith("#"));
+        if (wildflyVersions.isEmpty()) {
+            throw new Exception("No WildFly version found in " + (versions != null ? "-D" + VERSION_PROP : versionsFile));
+        }
+        if (Set.copyOf(wildflyVersions).size() != wildflyVersions.size()) {
+            throw new Exception("Duplicate WildFly version in " + wildflyVersions);
+        }
+        return wildflyVersions;
+    }
+
+    /**
+     * @return The previous version of the generated versions, set with {@code -Ddiff-previous} or the previous entry of the
+     * versions file or, when not listed, of the catalog index of the diff directory, the last indexed version if the
+     * version is not indexed yet.
+     */
+    private static Map<String, String> previousVersions(List<String> wildflyVersions, Path diffDirectory) throws Exception {
+        Map<String, String> previousVersions = new HashMap<>();
+        String previousVersion = System.getProperty(DIFF_PREVIOUS_PROP);
+        if (previousVersion != null) {
+            if (wildflyVersions.size() != 1) {
+                throw new Exception("-D" + DIFF_PREVIOUS_PROP + " can only be set when generating a single version");
+            }
+            previousVersions.put(wildflyVersions.get(0), previousVersion.trim());
+            return previousVersions;
+        }
+        Path versionsFile = Paths.get(System.getProperty(VERSIONS_FILE_PROP, "../versions.txt"));
+        List<String> listed = new ArrayList<>();
+        if (Files.exists(versionsFile)) {
+            listed.addAll(Files.readAllLines(versionsFile));
+            listed.replaceAll(String::trim);
+            listed.removeIf(version -> version.isEmpty() || version.startsWith("#"));
+        }
+        Path indexFile = diffDirectory.resolve("index.html");
+        List<String> indexed = Files.exists(indexFile) ? new ArrayList<>(indexedVersions(indexFile)) : List.of();
+        for (String wildflyVersion : wildflyVersions) {
+            int i = listed.indexOf(wildflyVersion);
+            int j = indexed.indexOf(wildflyVersion);
+            if (i > 0) {
+                previousVersions.put(wildflyVersion, listed.get(i - 1));
+            } else if (j > 0) {
+                previousVersions.put(wildflyVersion, indexed.get(j - 1));
+            } else if (j < 0 && !indexed.isEmpty()) {
+                previousVersions.put(wildflyVersion, indexed.get(indexed.size() - 1));
+            }
+        }
+        return previousVersions;
+    }
+
+    /**
+     * @return The catalog of the previous version to compare the generated version with, generated by this run if it
+     * has been listed before the version, read from the diff directory if not generated by this run, null if none.
+     */
+    private static CatalogDiff.Previous previous(String wildflyVersion, String previousVersion, List<String> wildflyVersions,
+            Map<String, Future<Void>> generations, Path rootDirectory, Path diffDirectory) {
+        if (previousVersion == null) {
+            System.out.println("No previous version of WildFly " + wildflyVersion + " found, no diff");
+            return null;
+        }
+        Future<Void> generation = generations.get(previousVersion);
+        if (generation != null) {
+            return new CatalogDiff.Previous(previousVersion, rootDirectory.resolve(previousVersion), generation);
+        }
+        if (wildflyVersions.contains(previousVersion)) {
+            // Its catalog can be being replaced.
+            System.out.println("WildFly " + previousVersion + " is generated after WildFly " + wildflyVersion + ", no diff");
+            return null;
+        }
+        return new CatalogDiff.Previous(previousVersion, diffDirectory.resolve(previousVersion), null);
+    }
+
+    private static Path generationReport(String wildflyVersion, boolean batch) {
+        String report = System.getProperty(GENERATION_REPORT_PROP);
+        if (report == null) {
+            return Paths.get("target/wildfly-catalog-generation-" + wildflyVersion + ".json");
+        }
+        Path reportFile = Paths.get(report);
+        if (!batch) {
+            return reportFile;
+        }
+        // One report per version.
+        String name = reportFile.getFileName().toString();
+        int i = name.lastIndexOf('.');
+        return reportFile.resolveSibling(i > 0 ? name.substring(0, i) + "-" + wildflyVersion + name.substring(i) : name + "-" + wildflyVersion);
+    }
+
+    private static void generate(String wildflyVersion, Path rootDirectory, GenerationOptions options, ObjectMapper mapper,
+            InputCache inputs, ExecutorService executor, ZipExtractor extractor, PreviewServer previewServer, CatalogDiff.Previous previous,
+            Path generationReport) throws Exception {
+        Instrumentation instrumentation = new Instrumentation();
+        boolean release = options.release();
+        boolean incremental = options.incremental();
+        boolean streaming = options.streaming();
+        boolean sharded = options.sharded();
+        boolean minify = options.minify();
+        boolean binary = options.binary();
+        Path wildflyVersionDirectory = rootDirectory.resolve(wildflyVersion);
+        JsonNode node = readCatalogMetadata(mapper, wildflyVersion);
 
         // Glow rules description
         Properties glowRulesDescriptions = new Properties();
         String rulesURL = node.get("glowRulesDescriptions").asText();
-        try (InputStream in = new URL(rulesURL).openStream()) {
+        Instrumentation.Span fetch = instrumentation.start(Instrumentation.Phase.HTTP_FETCH, null, null);
+        try (InputStream in = inputs.openStream(rulesURL)) {
             glowRulesDescriptions.load(in);
         }
         String baseMetadataUrl = node.get("baseMetadataURL").asText();
-        JsonNode variantsList = mapper.readTree(new URI(baseMetadataUrl + "variants.json").toURL());
+        JsonNode variantsList = inputs.readTree(mapper, baseMetadataUrl + "variants.json");
+        fetch.end(2, 0);
         List<Variant> variants = new ArrayList<>();
         ArrayNode variantNodes = (ArrayNode) variantsList.get("variants");
         // Add the default variant
@@ -80,11 +348,54 @@ public class Main {
         defaultVariant.put("directory", DEFAULT_VARIANT);
         defaultVariant.put("description", "WildFly");
         variantNodes.insert(0, defaultVariant);
-        Iterator<JsonNode> variantsIt = variantNodes.elements();
-        while (variantsIt.hasNext()) {
+        String glowRulesChecksum = CatalogCache.checksum(glowRulesDescriptions);
+        if (inputs.isCaching()) {
+            List<String> featurePacksURLs = new ArrayList<>();
+            for (JsonNode variantNode : variantNodes) {
+                featurePacksURLs.add(featurePacksURL(baseMetadataUrl, variantNode.get("directory").asText()));
+            }
+            inputs.prefetch(mapper, featurePacksURLs, executor);
+            if (options.prefetchOnly()) {
+                return;
+            }
+        }
+        // First resolve the feature-packs of all the variants, extraction is started in parallel.
+        List<List<Future<FeaturePackDoc>>> variantsFeaturePacks = new ArrayList<>();
+        List<CatalogCache> variantsCaches = new ArrayList<>();
+        for (JsonNode variantNode : variantNodes) {
+            String variantDir = variantNode.get("directory").asText();
+            CatalogCache cache = incremental ? new CatalogCache(Paths.get("target/catalog-cache").resolve(wildflyVersion).resolve(variantDir), mapper, glowRulesChecksum) : null;
+            variantsCaches.add(cache);
+            fetch = instrumentation.start(Instrumentation.Phase.HTTP_FETCH, variantDir, null);
+            JsonNode fpList = inputs.readTree(mapper, featurePacksURL(baseMetadataUrl, variantDir));
+            fetch.end(1, 0);
+            Path featurePacksTargetDirectory = wildflyVersionDirectory.resolve(variantDir).toAbsolutePath().resolve("featurePacks");
+            Files.createDirectories(previewServer == null ? featurePacksTargetDirectory : featurePacksTargetDirectory.getParent());
+            List<Future<FeaturePackDoc>> docs = new ArrayList<>();
             int fpOrder = 0;
+            for (JsonNode fpCoords : fpList.get("featurePacks")) {
+                String fp = fpCoords.asText();
+                String[] coords = fp.split(":");
+                int fpIndex = fpOrder;
+                String directoryName = fpOrder + "_" + (coords[0] + '_' + coords[1]);
+                fpOrder += 1;
+                Path fpDirectory = featurePacksTargetDirectory.resolve(directoryName);
+                String fpPath = wildflyVersion + "/" + variantDir + "/featurePacks/" + directoryName;
+                FutureTask<FeaturePackDoc> task = new FutureTask<>(() -> extractFeaturePack(inputs, mapper, fp, fpIndex, directoryName, fpDirectory, extractor, cache, !streaming,
+                        instrumentation, variantDir, previewServer, fpPath));
+                if (executor != null) {
+                    executor.execute(task);
+                }
+                docs.add(task);
+            }
+            variantsFeaturePacks.add(docs);
+        }
+        // Then merge the feature-packs in their order, the generated catalog doesn't depend on the extraction order.
+        Iterator<List<Future<FeaturePackDoc>>> variantsFeaturePacksIt = variantsFeaturePacks.iterator();
+        Iterator<CatalogCache> variantsCachesIt = variantsCaches.iterator();
+        for (JsonNode variantNode : variantNodes) {
+            CatalogCache cache = variantsCachesIt.next();
             Map<String, Map<String, JsonNode>> categories = new TreeMap<>();
-            JsonNode variantNode = variantsIt.next();
             String variantDir = variantNode.get("directory").asText();
             String variantDescription = variantNode.get("description").asText();
             ObjectNode target = mapper.createObjectNode();
@@ -92,266 +403,484 @@ public class Main {
             target.set("documentation", node.get("documentation"));
             target.set("legend", node.get("legend"));
             variants.add(new Variant(variantDir, variantDescription));
-            JsonNode fpList = mapper.readTree(new URI(baseMetadataUrl + (variantDir.equals(DEFAULT_VARIANT) ? "" : variantDir) + "/" + "feature-packs.json").toURL());
             Path variantDirectory = wildflyVersionDirectory.resolve(variantDir);
             Path targetDirectory = variantDirectory.toAbsolutePath();
-            Path featurePacksTargetDirectory = targetDirectory.resolve("featurePacks");
-            Files.createDirectories(featurePacksTargetDirectory);
-            ArrayNode fps = (ArrayNode) fpList.get("featurePacks");
-            Iterator<JsonNode> it = fps.elements();
             ArrayNode featurePacks = mapper.createArrayNode();
             target.set("featurePacks", featurePacks);
-            while (it.hasNext()) {
-                ObjectNode fpNode = mapper.createObjectNode();
-                featurePacks.add(fpNode);
-                String fp = it.next().asText();
-                fpNode.put("mavenCoordinates", fp);
-                String[] coords = fp.split(":");
-                String groupId = coords[0];
-                String artifactId = coords[1];
-                String version = coords[2];
-                Path docFile = resolveMavenArtifact(resolver, groupId, artifactId, version, "doc", "zip");
-                String directoryName = fpOrder + "_" + (coords[0] + '_' + artifactId);
-                fpOrder+=1;
-                Path fpDirectory = featurePacksTargetDirectory.resolve(directoryName);
-                unzip(docFile, fpDirectory);
-                Path metadataFile = fpDirectory.resolve("doc/META-INF/metadata.json");
-                Path modelFile = fpDirectory.resolve("doc/META-INF/management-api.json");
-                Path logMessages = fpDirectory.resolve("doc/log-message-reference.html");
-                JsonNode subCatalog = mapper.readTree(metadataFile.toFile().toURI().toURL());
-                String name = subCatalog.get("name").asText();
-                fpNode.put("name", name);
-                fpNode.put("description", subCatalog.get("description").asText());
-                fpNode.putIfAbsent("licenses", subCatalog.get("licenses"));
-                fpNode.put("projectURL", subCatalog.get("url").asText());
-                fpNode.put("scmURL", subCatalog.get("scm-url").asText());
-                ArrayNode layersArray = (ArrayNode) subCatalog.get("layers");
-                Iterator<JsonNode> layers = layersArray.elements();
-                ArrayNode layersArrayTarget = mapper.createArrayNode();
-                fpNode.set("layers", layersArrayTarget);
-                Set<String> layersSet = new TreeSet<>();
-                while (layers.hasNext()) {
-                    JsonNode layer = layers.next();
-                    if (!isInternalLayer(layer)) {
-                        layersSet.add(layer.get("name").asText());
+            // Only the feature-packs already merged are looked-up when resolving the model URLs.
+            ReferenceIndex referenceIndex = new ReferenceIndex();
+            StreamingCatalog streamingCatalog = streaming ? new StreamingCatalog(mapper) : null;
+            // Cached layers are only valid if the model URLs have been resolved with the same previous feature-packs.
+            boolean reuse = true;
+            List<LogMessageIndex.ReferencePage> logMessagePages = new ArrayList<>();
+            ModelIndex modelIndex = new ModelIndex();
+            for (Future<FeaturePackDoc> future : variantsFeaturePacksIt.next()) {
+                FeaturePackDoc doc = await(future);
+                reuse = reuse && doc.cached() != null;
+                // The model references of the catalog and of the model index.
+                long lookups = referenceIndex.lookups();
+                long misses = referenceIndex.misses();
+                long lookupNanos = referenceIndex.lookupNanos();
+                ObjectNode fpNode;
+                List<CatalogLayer> layers;
+                if (reuse) {
+                    fpNode = doc.cached().featurePack();
+                    layers = doc.cached().layers();
+                    referenceIndex.add(doc.directoryName(), doc.cached().referencePages());
+                    cache.record(doc.mavenCoordinates(), doc.directoryName(), doc.checksum());
+                } else if (streamingCatalog != null) {
+                    referenceIndex.add(doc.directoryName(), doc.referencePages());
+                    // The metadata is parsed while the catalog is generated.
+                    Instrumentation.Span generation = instrumentation.start(Instrumentation.Phase.GENERATION, variantDir, doc.mavenCoordinates());
+                    fpNode = streamingCatalog.addFeaturePack(doc, glowRulesDescriptions, referenceIndex);
+                    generation.end(fpNode.get("layers").size(), 0);
+                    layers = List.of();
+                } else {
+                    JsonNode subCatalog = doc.metadata() == null ? readMetadata(mapper, doc.directory(), instrumentation, variantDir, doc.mavenCoordinates()) : doc.metadata();
+                    List<String> referencePages = doc.referencePages() == null ? ReferenceIndex.listPages(doc.directory()) : doc.referencePages();
+                    referenceIndex.add(doc.directoryName(), referencePages);
+                    fpNode = featurePackNode(mapper, doc, subCatalog);
+                    Instrumentation.Span generation = instrumentation.start(Instrumentation.Phase.GENERATION, variantDir, doc.mavenCoordinates());
+                    layers = generateCatalog(subCatalog, glowRulesDescriptions, mapper, referenceIndex);
+                    generation.end(layers.size(), 0);
+                    if (cache != null) {
+                        cache.store(doc.mavenCoordinates(), doc.directoryName(), doc.checksum(), fpNode, referencePages, layers);
                     }
                 }
-                for (String n : layersSet) {
-                    layersArrayTarget.add(n);
-                }
-
-                if (Files.exists(modelFile)) {
-                    fpNode.put("modelReference", "featurePacks/" + directoryName + "/doc/reference/index.html");
-                }
-                if (Files.exists(logMessages)) {
-                    fpNode.put("logMessagesReference", "featurePacks/" + directoryName + "/doc/" + logMessages.getFileName().toString());
-                }
-                generateCatalog(subCatalog, glowRulesDescriptions, categories, mapper, featurePacksTargetDirectory);
-            }
-            ArrayNode categoriesArray = mapper.createArrayNode();
-            target.putIfAbsent("categories", categoriesArray);
-            for (Entry<String, Map<String, JsonNode>> entry : categories.entrySet()) {
-                String categoryName = entry.getKey();
-                ObjectNode category = mapper.createObjectNode();
-                category.put("name", categoryName);
-                ArrayNode categoryLayers = mapper.createArrayNode();
-                category.put("functionalities", categoryLayers);
-                for (Entry<String, JsonNode> layersInCategory : entry.getValue().entrySet()) {
-                    categoryLayers.add(layersInCategory.getValue());
+                featurePacks.add(fpNode);
+                modelIndex.add(doc.mavenCoordinates(), doc.model() == null ? ModelIndex.parse(mapper, doc.directory()) : doc.model(), referenceIndex);
+                instrumentation.referenceLookups(variantDir, doc.mavenCoordinates(), referenceIndex.lookups() - lookups,
+                        referenceIndex.misses() - misses, referenceIndex.lookupNanos() - lookupNanos);
+                JsonNode logMessagesReference = fpNode.get("logMessagesReference");
+                if (logMessagesReference != null) {
+                    logMessagePages.add(new LogMessageIndex.ReferencePage(doc.mavenCoordinates(), logMessagesReference.asText(),
+                            doc.directory().resolve(LogMessageIndex.REFERENCE_PAGE)));
                 }
-                categoriesArray.add(category);
+                mergeLayers(categories, layers);
+            }
+            if (cache != null) {
+                cache.writeManifest();
             }
+            System.out.println(referenceIndex.stats());
+            Instrumentation.Span write = instrumentation.start(Instrumentation.Phase.JSON_WRITE, variantDir, null);
             Path json = targetDirectory.resolve("wildfly-catalog.json");
             Files.deleteIfExists(json);
-            mapper.writerWithDefaultPrettyPrinter().writeValue(json.toFile(), target);
+            if (streamingCatalog != null) {
+                streamingCatalog.write(json, target, !minify);
+                streamingCatalog.close();
+            } else {
+                ArrayNode categoriesArray = mapper.createArrayNode();
+                target.putIfAbsent("categories", categoriesArray);
+                for (Entry<String, Map<String, JsonNode>> entry : categories.entrySet()) {
+                    String categoryName = entry.getKey();
+                    ObjectNode category = mapper.createObjectNode();
+                    category.put("name", categoryName);
+                    ArrayNode categoryLayers = mapper.createArrayNode();
+                    category.put("functionalities", categoryLayers);
+                    for (Entry<String, JsonNode> layersInCategory : entry.getValue().entrySet()) {
+                        categoryLayers.add(layersInCategory.getValue());
+                    }
+                    categoriesArray.add(category);
+                }
+                (minify ? mapper.writer() : mapper.writerWithDefaultPrettyPrinter()).writeValue(json.toFile(), target);
+            }
+            List<Path> written = new ArrayList<>();
+            written.add(json);
+            if (binary) {
+                written.add(BinaryCatalog.write(mapper, json));
+            }
+            Path searchIndex = SearchIndex.write(mapper, json);
+            written.add(searchIndex);
+            written.add(DependencyGraph.write(mapper, json));
+            Path logMessages = LogMessageIndex.write(mapper, json, logMessagePages);
+            if (logMessages != null) {
+                written.add(logMessages);
+            }
+            Path model = modelIndex.write(mapper, json);
+            if (model != null) {
+                written.add(model);
+            }
+            // The viewer loads the catalog index, layer details are loaded on demand.
+            Path viewerJson = sharded ? CatalogShards.write(mapper, json) : json;
+            if (sharded) {
+                written.add(viewerJson);
+            }
+            write.end(written.size(), written.stream().mapToLong(Instrumentation::size).sum());
+            // Not part of the JSON write phase, the generation of the previous version can be awaited.
+            Path diff = null;
+            if (previous != null) {
+                diff = CatalogDiff.write(mapper, json, previous, wildflyVersion, variantDir);
+            } else {
+                Files.deleteIfExists(targetDirectory.resolve(CatalogDiff.FILE));
+            }
+            // The viewer loads the fingerprinted JSON files.
+            AssetFingerprinter.Assets assets = options.fingerprint()
+                    ? AssetFingerprinter.fingerprint(mapper, targetDirectory, viewerJson, searchIndex, options.threads()) : null;
+            String viewerJsonName = assets == null ? viewerJson.getFileName().toString() : assets.catalog();
+            String serviceWorker = null;
+            if (options.serviceWorker()) {
+                serviceWorker = SERVICE_WORKER;
+                TemplateUtils.render(ENGINE.getTemplate("catalog-service-worker.js")
+                        .data("cachePrefix", "wildfly-catalog-" + wildflyVersion + "-" + variantDir + "-")
+                        .data("hash", assets.hash().substring(0, 16))
+                        .data("precache", List.of("./", assets.catalog(), assets.searchIndex())), targetDirectory.resolve(SERVICE_WORKER));
+            }
+            Instrumentation.Span viewerSpan = instrumentation.start(Instrumentation.Phase.VIEWER, variantDir, null);
+            StaticPages.Overview overview = StaticPages.write(mapper, json);
+            Path logMessagesPage = targetDirectory.resolve(LogMessageIndex.PAGE);
+            Files.deleteIfExists(logMessagesPage);
+            if (logMessages != null) {
+                TemplateUtils.render(ENGINE.getTemplate("log-messages")
+                        .data("catalogDescription", target.get("description").asText())
+                        .data("index", logMessages.getFileName().toString()), logMessagesPage);
+            }
+            Path modelPage = targetDirectory.resolve(ModelIndex.PAGE);
+            Files.deleteIfExists(modelPage);
+            if (model != null) {
+                TemplateUtils.render(ENGINE.getTemplate("model-search")
+                        .data("catalogDescription", target.get("description").asText())
+                        .data("index", model.getFileName().toString()), modelPage);
+            }
+            Path diffPage = targetDirectory.resolve(CatalogDiff.PAGE);
+            Files.deleteIfExists(diffPage);
+            if (diff != null) {
+                TemplateUtils.render(ENGINE.getTemplate("catalog-diff")
+                        .data("catalogDescription", target.get("description").asText())
+                        .data("previousVersion", previous.version())
+                        .data("diff", diff.getFileName().toString()), diffPage);
+            }
             Path viewer = targetDirectory.resolve("index.html");
             Files.deleteIfExists(viewer);
-            Files.write(viewer, patchFile("wildfly-catalog-viewer.html", wildflyVersion, json, release, variantDir, variantDescription));
+            String jsonUrl = release ? "https://docs.wildfly.org/wildfly-catalog/" + wildflyVersion + "/" + variantDir + "/" + viewerJsonName
+                    : previewServer != null ? viewerJsonName : viewerJson.resolveSibling(viewerJsonName).toUri().toString();
+            TemplateUtils.render(ENGINE.getTemplate("wildfly-catalog-viewer")
+                    .data("variantDescription", variantDescription)
+                    .data("jsonUrl", jsonUrl)
+                    .data("searchIndexFile", assets == null ? searchIndex.getFileName().toString() : assets.searchIndex())
+                    .data("serviceWorker", serviceWorker)
+                    .data("logMessagesLookup", logMessages == null ? null : LogMessageIndex.PAGE)
+                    .data("modelSearch", model == null ? null : ModelIndex.PAGE)
+                    .data("catalogDiff", diff == null ? null : CatalogDiff.PAGE)
+                    .data("previousVersion", diff == null ? null : previous.version())
+                    .data("catalog", overview), viewer);
+            viewerSpan.end(1 + overview.pages(), Files.size(viewer) + overview.bytes());
         }
-        String variantsIndexContent = ENGINE.getTemplate("variants")
-                .data("variants", variants)
-                .render();
-        Files.write(wildflyVersionDirectory.resolve("index.html"), variantsIndexContent.getBytes());
-        if (release) {
-            String newEntry = "<li><a href=\"" + wildflyVersion + "/index.html\">" + wildflyVersion + "</a></li>";
-            // Update index
-            Path indexFile = rootDirectory.resolve("index.html").toAbsolutePath();
-            List<String> lines = Files.readAllLines(indexFile);
-            //Check if the index already exists
-            boolean exists = false;
-            for (String line : lines) {
-                if (line.contains(newEntry)) {
-                    exists = true;
-                    break;
-                }
-            }
-            if (exists) {
-                System.out.println("Catalog for WildFly " + wildflyVersion + " already exists in the index, index not updated.");
+        TemplateUtils.render(ENGINE.getTemplate("variants")
+                .data("variants", variants), wildflyVersionDirectory.resolve("index.html"));
+        if (options.precompress()) {
+            Precompressor.compress(mapper, wildflyVersionDirectory, options.precompressThreshold(), options.threads());
+        }
+        instrumentation.write(mapper, wildflyVersion, generationReport);
+        System.out.println("Catalog for WildFly " + wildflyVersion + " has been generated in " + wildflyVersionDirectory.toAbsolutePath());
+    }
+
+    /**
+     * Add the generated versions to the catalog index, after the versions already listed. The index is rendered once.
+     */
+    private static void updateIndex(Path rootDirectory, List<String> wildflyVersions) throws IOException {
+        Path indexFile = rootDirectory.resolve("index.html").toAbsolutePath();
+        Set<String> versions = indexedVersions(indexFile);
+        boolean updated = false;
+        for (String wildflyVersion : wildflyVersions) {
+            if (versions.add(wildflyVersion)) {
+                updated = true;
             } else {
-                List<String> targetLines = new ArrayList<>();
-                for (String line : lines) {
-                    if (line.contains(REPLACE_LATEST_INDEX_ENTRY)) {
-                        targetLines.add(newEntry);
-                        targetLines.add(REPLACE_LATEST_INDEX_ENTRY);
-                    } else {
-                        targetLines.add(line);
-                    }
-                }
-                Files.deleteIfExists(indexFile);
-                Files.write(indexFile, targetLines);
+                System.out.println("Catalog for WildFly " + wildflyVersion + " already exists in the index, index not updated.");
             }
         }
-        System.out.println("Catalog has been generated in " + rootDirectory.toAbsolutePath());
+        if (updated) {
+            TemplateUtils.render(ENGINE.getTemplate("catalog-index").data("versions", versions), indexFile);
+        }
     }
 
-    private static List<String> patchFile(String resource, String wildflyVersion, Path jsonFile, boolean release, String variantDir, String variantDescription) throws Exception {
-        String uri = "https://docs.wildfly.org/wildfly-catalog/" + wildflyVersion + "/" + variantDir + "/wildfly-catalog.json";
-        if (jsonFile != null) {
-            if (!release) {
-                uri = jsonFile.toUri().toString();
-            }
-        }
-        try (InputStream stream = Main.class.getResourceAsStream(resource)) {
-            try (InputStreamReader inputStreamReader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
-                try (BufferedReader bufferedReader = new BufferedReader(inputStreamReader)) {
-                    List<String> lines = bufferedReader.lines().collect(Collectors.toList());
-                    List<String> targetLines = new ArrayList<>();
-                    for (String line : lines) {
-                        if (line.contains(REPLACE_JSON_URL)) {
-                            line = line.replace(REPLACE_JSON_URL, uri);
-                        }
-                        if (line.contains(REPLACE_WILDFLY_VERSION)) {
-                            line = line.replace(REPLACE_WILDFLY_VERSION, wildflyVersion);
-                        }
-                        if (line.contains(REPLACE_WILDFLY_VARIANT)) {
-                            line = line.replace(REPLACE_WILDFLY_VARIANT, variantDescription);
-                        }
-                        targetLines.add(line);
-                    }
-                    return targetLines;
+    /**
+     * @return The versions listed in the catalog index, in index order.
+     */
+    private static Set<String> indexedVersions(Path indexFile) throws IOException {
+        Set<String> versions = new LinkedHashSet<>();
+        try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher matcher = INDEX_ENTRY.matcher(line);
+                if (matcher.find()) {
+                    versions.add(matcher.group(1));
                 }
             }
         }
+        return versions;
+    }
+
+    private static long peakHeapUsage() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static String featurePacksURL(String baseMetadataUrl, String variantDir) {
+        return baseMetadataUrl + (variantDir.equals(DEFAULT_VARIANT) ? "" : variantDir) + "/" + "feature-packs.json";
+    }
+
+    private static FeaturePackDoc extractFeaturePack(InputCache inputs, ObjectMapper mapper, String fp, int fpIndex, String directoryName,
+            Path fpDirectory, ZipExtractor extractor, CatalogCache cache, boolean parseMetadata, Instrumentation instrumentation,
+            String variantDir, PreviewServer previewServer, String fpPath) throws Exception {
+        String[] coords = fp.split(":");
+        String groupId = coords[0];
+        String artifactId = coords[1];
+        String version = coords[2];
+        Instrumentation.Span resolution = instrumentation.start(Instrumentation.Phase.MAVEN_RESOLUTION, variantDir, fp);
+        Path docFile = inputs.resolve(groupId, artifactId, version, "doc", "zip");
+        resolution.end(1, Files.size(docFile));
+        String checksum = null;
+        if (cache != null) {
+            checksum = CatalogCache.checksum(docFile);
+            if (cache.isUnchanged(fpIndex, fp, directoryName, checksum) && Files.isDirectory(fpDirectory)) {
+                System.out.println("Feature-pack " + fp + " is unchanged, reusing " + fpDirectory);
+                return new FeaturePackDoc(fp, directoryName, fpDirectory, null, null, null, checksum, cache.load(directoryName));
+            }
+        }
+        if (previewServer != null) {
+            Path docRoot = previewServer.mount(fpPath, docFile);
+            JsonNode subCatalog = parseMetadata ? readMetadata(mapper, docRoot, instrumentation, variantDir, fp) : null;
+            return new FeaturePackDoc(fp, directoryName, docRoot, subCatalog, ReferenceIndex.listPages(docRoot),
+                    ModelIndex.parse(mapper, docRoot), checksum, null);
+        }
+        Instrumentation.Span unzip = instrumentation.start(Instrumentation.Phase.UNZIP, variantDir, fp);
+        ZipExtractor.Extracted extracted = extractor.extract(docFile, fpDirectory);
+        unzip.end(extracted.entries(), extracted.bytes());
+        JsonNode subCatalog = parseMetadata ? readMetadata(mapper, fpDirectory, instrumentation, variantDir, fp) : null;
+        // The model index is built while the feature-packs are extracted, merged in the feature-packs order.
+        return new FeaturePackDoc(fp, directoryName, fpDirectory, subCatalog, ReferenceIndex.listPages(fpDirectory),
+                ModelIndex.parse(mapper, fpDirectory), checksum, null);
+    }
+
+    static JsonNode readMetadata(ObjectMapper mapper, Path fpDirectory) throws IOException {
+        Path metadataFile = fpDirectory.resolve("doc/META-INF/metadata.json");
+        // The feature-pack directory can be the root of a zip file system.
+        try (InputStream in = Files.newInputStream(metadataFile)) {
+            return mapper.readTree(in);
+        }
+    }
+
+    private static JsonNode readMetadata(ObjectMapper mapper, Path fpDirectory, Instrumentation instrumentation, String variantDir,
+            String fp) throws IOException {
+        Instrumentation.Span parsing = instrumentation.start(Instrumentation.Phase.METADATA_PARSING, variantDir, fp);
+        JsonNode subCatalog = readMetadata(mapper, fpDirectory);
+        parsing.end(subCatalog.path("layers").size(), Files.size(fpDirectory.resolve("doc/META-INF/metadata.json")));
+        return subCatalog;
+    }
+
+    private static ObjectNode featurePackNode(ObjectMapper mapper, FeaturePackDoc doc, JsonNode subCatalog) {
+        Set<String> layersSet = new TreeSet<>();
+        for (JsonNode layer : subCatalog.get("layers")) {
+            if (!isInternalLayer(layer)) {
+                layersSet.add(layer.get("name").asText());
+            }
+        }
+        return featurePackNode(mapper, doc, subCatalog, layersSet);
+    }
+
+    static ObjectNode featurePackNode(ObjectMapper mapper, FeaturePackDoc doc, JsonNode subCatalog, Set<String> layersSet) {
+        ObjectNode fpNode = mapper.createObjectNode();
+        fpNode.put("mavenCoordinates", doc.mavenCoordinates());
+        String directoryName = doc.directoryName();
+        Path fpDirectory = doc.directory();
+        Path modelFile = fpDirectory.resolve("doc/META-INF/management-api.json");
+        Path logMessages = fpDirectory.resolve(LogMessageIndex.REFERENCE_PAGE);
+        String name = subCatalog.get("name").asText();
+        fpNode.put("name", name);
+        fpNode.put("description", subCatalog.get("description").asText());
+        fpNode.putIfAbsent("licenses", subCatalog.get("licenses"));
+        fpNode.put("projectURL", subCatalog.get("url").asText());
+        fpNode.put("scmURL", subCatalog.get("scm-url").asText());
+        ArrayNode layersArrayTarget = mapper.createArrayNode();
+        fpNode.set("layers", layersArrayTarget);
+        for (String n : layersSet) {
+            layersArrayTarget.add(n);
+        }
+
+        if (Files.exists(modelFile)) {
+            fpNode.put("modelReference", "featurePacks/" + directoryName + "/doc/reference/index.html");
+        }
+        if (Files.exists(logMessages)) {
+            fpNode.put("logMessagesReference", "featurePacks/" + directoryName + "/doc/" + logMessages.getFileName().toString());
+        }
+        return fpNode;
+    }
+
+    static <T> T await(Future<T> future) throws Exception {
+        // Not yet started (or no executor), run it in the current thread.
+        if (future instanceof FutureTask<T> task) {
+            task.run();
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private static JsonNode readCatalogMetadata(ObjectMapper mapper, String wildflyVersion) throws IOException {
+        try (InputStream stream = Main.class.getResourceAsStream("wildfly-catalog-metadata.json")) {
+            String metadata = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+            return mapper.readTree(metadata.replace(REPLACE_WILDFLY_VERSION, wildflyVersion));
+        }
     }
 
-    private static void generateCatalog(JsonNode subCatalog, Properties glowRulesDescriptions,
-            Map<String, Map<String, JsonNode>> categories, ObjectMapper mapper, Path wildscribeTargetDirectory) throws Exception {
+    static List<CatalogLayer> generateCatalog(JsonNode subCatalog, Properties glowRulesDescriptions,
+            ObjectMapper mapper, ReferenceIndex referenceIndex) throws Exception {
         String groupId = subCatalog.get("groupId").asText();
         String artifactId = subCatalog.get("artifactId").asText();
         String version = subCatalog.get("version").asText();
         String fp = groupId + ":" + artifactId + ":" + version;
 
+        List<CatalogLayer> catalogLayers = new ArrayList<>();
         ArrayNode layersArray = (ArrayNode) subCatalog.get("layers");
         Iterator<JsonNode> layers = layersArray.elements();
         while (layers.hasNext()) {
             ObjectNode layer = (ObjectNode) layers.next();
-            layer.put("feature-pack", fp);
-            String layerName = layer.get("name").asText();
-            ArrayNode props = ((ArrayNode) layer.get("properties"));
-            String category = null;
-            String description = null;
-            String note = null;
-            String addOn = null;
-            // For now we have feature-packs that have not been regenerated with the support for stability.
-            JsonNode stab = layer.get("stability");
-            String stability = stab == null ? null : stab.asText();
-            List<JsonNode> discoveryRules = new ArrayList<>();
-            if (props != null) {
-                Iterator<JsonNode> properties = props.elements();
-                while (properties.hasNext()) {
-                    ObjectNode prop = (ObjectNode) properties.next();
-                    String name = prop.get("name").asText();
-                    if (name.equals("org.wildfly.category")) {
-                        category = prop.get("value").asText();
-                        continue;
-                    }
-                    if (name.equals("org.wildfly.description")) {
-                        description = prop.get("value").asText();
-                        continue;
-                    }
-                    if (name.equals("org.wildfly.note")) {
-                        note = prop.get("value").asText();
-                        continue;
-                    }
-                    if (name.equals("org.wildfly.stability")) {
-                        stability = prop.get("value").asText();
-                        continue;
-                    }
-                    if (name.equals("org.wildfly.rule.add-on")) {
-                        String val = prop.get("value").asText();
-                        addOn = val.split(",")[1];
-                        continue;
-                    }
-                    if (name.equals("org.wildfly.rule.kind")) {
-                        String val = prop.get("value").asText();
-                        if (val.equals("default-base-layer")) {
-                            discoveryRules.add(prop);
-                            setRuleDescription(name, glowRulesDescriptions, prop);
-                        }
-                        continue;
-                    }
-                    if (name.startsWith("org.wildfly.rule") && !name.startsWith("org.wildfly.rule.add-on")) {
+            CatalogLayer catalogLayer = processLayer(layer, fp, glowRulesDescriptions, mapper, referenceIndex);
+            if (catalogLayer != null) {
+                catalogLayers.add(catalogLayer);
+            }
+        }
+        return catalogLayers;
+    }
+
+    /**
+     * Converts a feature-pack layer to a catalog layer.
+     *
+     * @param referenceIndex The index used to resolve the model URLs, null if they have already been resolved.
+     * @return The catalog layer or null if the layer is not part of the catalog.
+     */
+    static CatalogLayer processLayer(ObjectNode layer, String fp, Properties glowRulesDescriptions,
+            ObjectMapper mapper, ReferenceIndex referenceIndex) {
+        layer.put("feature-pack", fp);
+        String layerName = layer.get("name").asText();
+        ArrayNode props = ((ArrayNode) layer.get("properties"));
+        String category = null;
+        String description = null;
+        String note = null;
+        String addOn = null;
+        // For now we have feature-packs that have not been regenerated with the support for stability.
+        JsonNode stab = layer.get("stability");
+        String stability = stab == null ? null : stab.asText();
+        List<JsonNode> discoveryRules = new ArrayList<>();
+        if (props != null) {
+            Iterator<JsonNode> properties = props.elements();
+            while (properties.hasNext()) {
+                ObjectNode prop = (ObjectNode) properties.next();
+                String name = prop.get("name").asText();
+                if (name.equals("org.wildfly.category")) {
+                    category = prop.get("value").asText();
+                    continue;
+                }
+                if (name.equals("org.wildfly.description")) {
+                    description = prop.get("value").asText();
+                    continue;
+                }
+                if (name.equals("org.wildfly.note")) {
+                    note = prop.get("value").asText();
+                    continue;
+                }
+                if (name.equals("org.wildfly.stability")) {
+                    stability = prop.get("value").asText();
+                    continue;
+                }
+                if (name.equals("org.wildfly.rule.add-on")) {
+                    String val = prop.get("value").asText();
+                    addOn = val.split(",")[1];
+                    continue;
+                }
+                if (name.equals("org.wildfly.rule.kind")) {
+                    String val = prop.get("value").asText();
+                    if (val.equals("default-base-layer")) {
                         discoveryRules.add(prop);
                         setRuleDescription(name, glowRulesDescriptions, prop);
-                        continue;
                     }
+                    continue;
                 }
-                layer.remove("properties");
-            }
-            if (category == null) {
-                category = "Internal";
-                // Internal without any content are not taken into account
-                if (layer.get("managementModel").isEmpty()
-                        && !layer.has("dependencies") && !layer.has("packages")) {
-                    System.out.println("Internal with metadata only, ignoring " + layer.get("name").asText() + " of " + fp);
+                if (name.startsWith("org.wildfly.rule") && !name.startsWith("org.wildfly.rule.add-on")) {
+                    discoveryRules.add(prop);
+                    setRuleDescription(name, glowRulesDescriptions, prop);
                     continue;
                 }
             }
-            if (description != null) {
-                layer.put("description", description);
-            }
-            if (note != null) {
-                layer.put("note", note);
-            }
-            if (addOn != null) {
-                layer.put("glowAddOn", addOn);
+            layer.remove("properties");
+        }
+        if (category == null) {
+            category = "Internal";
+            // Internal without any content are not taken into account
+            if (isEmptyModel(layer.get("managementModel"))
+                    && !layer.has("dependencies") && !layer.has("packages")) {
+                System.out.println("Internal with metadata only, ignoring " + layer.get("name").asText() + " of " + fp);
+                return null;
             }
-            if (stability == null) {
-                layer.put("stability", "default");
-            } else {
-                layer.put("stability", stability);
+        }
+        if (description != null) {
+            layer.put("description", description);
+        }
+        if (note != null) {
+            layer.put("note", note);
+        }
+        if (addOn != null) {
+            layer.put("glowAddOn", addOn);
+        }
+        if (stability == null) {
+            layer.put("stability", "default");
+        } else {
+            layer.put("stability", stability);
+        }
+        if (!discoveryRules.isEmpty()) {
+            ArrayNode rules = mapper.createArrayNode();
+            rules.addAll(discoveryRules);
+            layer.putIfAbsent("glowRules", rules);
+        }
+        layer.put("glowDiscoverable", !discoveryRules.isEmpty());
+        if (referenceIndex != null) {
+            if (layer.has("managementModel")) {
+                navigate(referenceIndex, layer.get("managementModel"));
             }
-            if (!discoveryRules.isEmpty()) {
-                ArrayNode rules = mapper.createArrayNode();
-                rules.addAll(discoveryRules);
-                layer.putIfAbsent("glowRules", rules);
+            if (layer.has("configurations")) {
+                navigate(referenceIndex, layer.get("configurations"));
             }
-            layer.put("glowDiscoverable", !discoveryRules.isEmpty());
-            Map<String, JsonNode> nodes = categories.get(category);
+        }
+        return new CatalogLayer(category, layerName, layer);
+    }
+
+    private static boolean isEmptyModel(JsonNode model) {
+        // A streamed model is kept as a raw value, only set when the model is not empty.
+        return !model.isPojo() && model.isEmpty();
+    }
+
+    private static void mergeLayers(Map<String, Map<String, JsonNode>> categories, List<CatalogLayer> catalogLayers) {
+        for (CatalogLayer catalogLayer : catalogLayers) {
+            ObjectNode layer = catalogLayer.layer();
+            Map<String, JsonNode> nodes = categories.get(catalogLayer.category());
             if (nodes == null) {
                 nodes = new TreeMap<>();
-                categories.put(category, nodes);
+                categories.put(catalogLayer.category(), nodes);
             }
-            if (nodes.containsKey(layerName)) {
+            if (nodes.containsKey(catalogLayer.name())) {
                 // add all dependencies
-                JsonNode overriden = nodes.get(layerName);
+                JsonNode overriden = nodes.get(catalogLayer.name());
                 ArrayNode deps = (ArrayNode) layer.get("dependencies");
                 if (deps != null) {
                     ArrayNode overridenDeps = (ArrayNode) overriden.get("dependencies");
                     deps.addAll(overridenDeps);
                 }
             }
-            if (layer.has("managementModel")) {
-                navigate(wildscribeTargetDirectory, layer.get("managementModel"));
-            }
-            if (layer.has("configurations")) {
-                navigate(wildscribeTargetDirectory, layer.get("configurations"));
-            }
-            nodes.put(layerName, layer);
+            nodes.put(catalogLayer.name(), layer);
         }
     }
 
-    private static boolean isInternalLayer(JsonNode layer) {
+    static boolean isInternalLayer(JsonNode layer) {
         ArrayNode props = ((ArrayNode) layer.get("properties"));
         if (props == null) {
             return true;
@@ -377,7 +906,7 @@ public class Main {
         }
     }
 
-    private static String formatURL(String url) {
+    static String formatURL(String url) {
         if ("/server-root=/".equals(url)) {
             url = "";
         }
@@ -403,58 +932,59 @@ public class Main {
         return url;
     }
 
-    private static void navigate(Path rootDir, JsonNode model) {
+    static void navigate(ReferenceIndex referenceIndex, JsonNode model) {
         if (model instanceof ArrayNode) {
             ArrayNode array = (ArrayNode) model;
             Iterator<JsonNode> it = array.elements();
             while (it.hasNext()) {
-                navigate(rootDir, it.next());
+                navigate(referenceIndex, it.next());
             }
         } else {
             JsonNode n = model.get("_address");
             if (n != null) {
-                String url = formatURL(n.asText());
-                if (url == null) {
+                String foundURL = resolveAddress(referenceIndex, n.asText());
+                if (foundURL == null) {
                     ((ObjectNode) model).remove("_address");
                 } else {
-                    String foundURL = findURL(rootDir, url);
-                    if (foundURL == null) {
-                        System.out.println("Url not found for " + url + " address was " + n.asText());
-                        ((ObjectNode) model).remove("_address");
-                    } else {
-                        ((ObjectNode) model).put("_address", foundURL);
-                    }
+                    ((ObjectNode) model).put("_address", foundURL);
                 }
             }
             Iterator<String> fields = model.fieldNames();
             while (fields.hasNext()) {
                 String field = fields.next();
                 JsonNode node = model.get(field);
-                navigate(rootDir, node);
+                navigate(referenceIndex, node);
             }
         }
     }
 
-    private static String findURL(Path rootDir, String path) {
-        if (path.startsWith("/")) {
-            path = path.substring(1);
+    /**
+     * @return The URL of the reference page documenting the management address or null if not found.
+     */
+    static String resolveAddress(ReferenceIndex referenceIndex, String address) {
+        String foundURL = findAddress(referenceIndex, address);
+        if (foundURL == null) {
+            System.out.println("Url not found for " + formatURL(address) + " address was " + address);
         }
-        String formattedPath = path;
-        if (path.contains("#")) {
-            int i = formattedPath.indexOf("#");
-            formattedPath = formattedPath.substring(0, i);
+        return foundURL;
+    }
+
+    /**
+     * @return The URL of the reference page documenting the management address or null if not found, not reported.
+     */
+    static String findAddress(ReferenceIndex referenceIndex, String address) {
+        String url = formatURL(address);
+        if (url == null) {
+            return null;
         }
-        for (File fpDir : rootDir.toFile().listFiles()) {
-            Path pathFile = fpDir.toPath().resolve("doc").resolve("reference").resolve(formattedPath);
-            if (Files.exists(pathFile)) {
-                // No need for the fp root index.
-                if (pathFile.getParent().equals(fpDir.toPath())) {
-                    return null;
-                }
-                return "featurePacks/" + fpDir.getName() + "/doc/reference/" + path;
-            }
+        return findURL(referenceIndex, url);
+    }
+
+    private static String findURL(ReferenceIndex referenceIndex, String path) {
+        if (path.startsWith("/")) {
+            path = path.substring(1);
         }
-        return null;
+        return referenceIndex.find(path);
     }
 
     /**
@@ -470,43 +1000,20 @@ public class Main {
     }
 
     public static void unzip(Path zipFile, Path targetDir) throws IOException {
-        if (!Files.exists(targetDir)) {
-            Files.createDirectories(targetDir);
-        }
-        try (FileSystem zipfs = newFileSystem(zipFile)) {
-            for (Path zipRoot : zipfs.getRootDirectories()) {
-                copyFromZip(zipRoot, targetDir);
-            }
-        }
+        unzip(zipFile, targetDir, null);
     }
 
-    public static void copyFromZip(Path source, Path target) throws IOException {
-        Files.walkFileTree(source, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
-                new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
-                    throws IOException {
-                final Path targetDir = target.resolve(source.relativize(dir).toString());
-                try {
-                    Files.copy(dir, targetDir);
-                } catch (FileAlreadyExistsException e) {
-                    if (!Files.isDirectory(targetDir)) {
-                        throw e;
-                    }
-                }
-                return FileVisitResult.CONTINUE;
-            }
-
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
-                    throws IOException {
-                Files.copy(file, target.resolve(source.relativize(file).toString()), StandardCopyOption.REPLACE_EXISTING);
-                return FileVisitResult.CONTINUE;
-            }
-        });
+    /**
+     * @param zipFile The zip file.
+     * @param targetDir The directory to extract the zip content to.
+     * @param contentStore The store the files content is written to, null to copy the files content.
+     * @throws IOException in case of a failure
+     */
+    public static void unzip(Path zipFile, Path targetDir, ContentStore contentStore) throws IOException {
+        new ZipExtractor(contentStore, null, 1).extract(zipFile, targetDir);
     }
 
-    private static void recursiveDelete(Path root) {
+    static void recursiveDelete(Path root) {
         if (root == null || !Files.exists(root)) {
             return;
         }
@@ -540,7 +1047,7 @@ public class Main {
         }
     }
 
-    private static Path resolveMavenArtifact(MavenRepoManager resolver, String groupId, String artifactId, String version, String classifier, String extension) throws Exception {
+    static Path resolveMavenArtifact(MavenRepoManager resolver, String groupId, String artifactId, String version, String classifier, String extension) throws Exception {
         MavenArtifact artifact = new MavenArtifact();
         artifact.setGroupId(groupId);
         artifact.setArtifactId(artifactId);
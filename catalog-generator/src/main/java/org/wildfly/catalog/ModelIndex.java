@@ -0,0 +1,376 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Search index of the management model of the feature-packs of a variant, so that the lookup page can answer where a
+ * resource, an attribute or a capability is without crawling the reference pages. The resources, their attributes and
+ * capabilities are read from the feature-packs Galleon feature specs ({@code doc/META-INF/features.json}), the
+ * descriptions from the reference pages. A feature-pack is parsed by {@link #parse} while it is extracted, then added
+ * in the feature-packs order, its URLs being resolved as the catalog model URLs. The {@link #FILE} index lists the
+ * resources ({@code [address, url, feature-pack]}, url being null if the resource has no reference page), the
+ * documents are written in {@link #SHARDS_DIRECTORY}, {@link #DOCUMENTS_PER_SHARD} per shard:
+ * <pre>
+ * [[kind, name, resource, description], ...]
+ * </pre>
+ * kind being 0 for a resource, 1 for an attribute and 2 for a capability. The tokens of the documents names and
+ * descriptions are sharded by their first character, each token mapping to its postings, the document id shifted left
+ * by three, or'ed with the kind shifted left by one and with 1 if the token is in the document name. The {@link #PAGE}
+ * lookup page only loads the token shards of the searched terms and the document shards of the displayed hits.
+ */
+class ModelIndex {
+
+    static final String FILE = "wildfly-catalog-model.json";
+    static final String SHARDS_DIRECTORY = "wildfly-catalog-model";
+    static final String PAGE = "model-search.html";
+    private static final String FEATURES = "doc/META-INF/features.json";
+    // Default value of the parameters without default, such as the domain profile.
+    private static final String UNDEFINED = "GLN_UNDEFINED";
+    private static final int DOCUMENTS_PER_SHARD = 1000;
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+    /**
+     * A resource of a feature-pack.
+     *
+     * @param address The resource address, {@code *} for the resource names.
+     * @param description The description of the reference page, null if the feature-pack has no reference page for the
+     * resource.
+     * @param attributes The feature spec parameters and the attributes of the reference page.
+     * @param capabilities The capabilities provided by the feature spec, the dynamic part being the parameter name.
+     */
+    record Resource(String address, String description, List<Attribute> attributes, List<String> capabilities) {}
+
+    record Attribute(String name, String description) {}
+
+    private record Document(int kind, String name, int resource, String description) {}
+
+    private final List<String> featurePacks = new ArrayList<>();
+    private final Map<String, Integer> resourceIds = new LinkedHashMap<>();
+    private final List<String> urls = new ArrayList<>();
+    private final List<Integer> owners = new ArrayList<>();
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<String, Set<Integer>> tokens = new TreeMap<>();
+
+    /**
+     * Parse the model of an extracted feature-pack, thread safe.
+     *
+     * @param mapper The mapper.
+     * @param fpDirectory The feature-pack directory, can be the root of a zip file system.
+     * @return The resources of the feature-pack, empty if the feature-pack has no feature spec.
+     * @throws IOException in case of a failure
+     */
+    static List<Resource> parse(ObjectMapper mapper, Path fpDirectory) throws IOException {
+        Path featuresFile = fpDirectory.resolve(FEATURES);
+        if (!Files.exists(featuresFile)) {
+            return List.of();
+        }
+        JsonNode features;
+        try (InputStream in = Files.newInputStream(featuresFile)) {
+            features = mapper.readTree(in);
+        }
+        Path referenceDir = fpDirectory.resolve(ReferenceIndex.REFERENCE_DIR);
+        List<Resource> resources = new ArrayList<>();
+        for (JsonNode feature : features) {
+            // The items of a complex attribute, documented with their attribute.
+            if (feature.path("annotation").has("complex-attribute")) {
+                continue;
+            }
+            Map<String, JsonNode> params = new LinkedHashMap<>();
+            for (JsonNode param : feature.path("params")) {
+                params.put(param.get("name").asText(), param);
+            }
+            List<String> addressParams = new ArrayList<>();
+            List<String> attributes = new ArrayList<>();
+            JsonNode annotation = feature.get("annotation");
+            if (annotation != null && annotation.has("addr-params")) {
+                addressParams.addAll(List.of(annotation.get("addr-params").asText().split(",")));
+                if (annotation.has("op-params")) {
+                    attributes.addAll(List.of(annotation.get("op-params").asText().split(",")));
+                }
+            } else {
+                // No annotation, the feature-id parameters are the address.
+                for (JsonNode param : params.values()) {
+                    if (param.path("feature-id").asBoolean()) {
+                        addressParams.add(param.get("name").asText());
+                    } else {
+                        attributes.add(param.get("name").asText());
+                    }
+                }
+            }
+            String address = address(addressParams, params, true);
+            Path page = referenceDir.resolve(Main.formatURL(address).substring(1));
+            if (!Files.exists(page)) {
+                // A singleton documented as a wildcard resource.
+                String wildcard = address(addressParams, params, false);
+                Path wildcardPage = referenceDir.resolve(Main.formatURL(wildcard).substring(1));
+                if (Files.exists(wildcardPage)) {
+                    address = wildcard;
+                    page = wildcardPage;
+                }
+            }
+            Map<String, String> descriptions = new LinkedHashMap<>();
+            String description = null;
+            if (Files.exists(page)) {
+                description = parsePage(Files.readString(page, StandardCharsets.UTF_8), descriptions);
+            }
+            for (String attribute : attributes) {
+                descriptions.putIfAbsent(attribute.trim(), null);
+            }
+            descriptions.keySet().removeIf(String::isEmpty);
+            List<Attribute> resourceAttributes = new ArrayList<>();
+            for (Entry<String, String> entry : descriptions.entrySet()) {
+                resourceAttributes.add(new Attribute(entry.getKey(), entry.getValue()));
+            }
+            List<String> capabilities = new ArrayList<>();
+            for (JsonNode capability : feature.path("provides")) {
+                capabilities.add(capability.asText());
+            }
+            resources.add(new Resource(address, description, resourceAttributes, capabilities));
+        }
+        return resources;
+    }
+
+    private static String address(List<String> addressParams, Map<String, JsonNode> params, boolean defaults) {
+        StringBuilder address = new StringBuilder();
+        for (String name : addressParams) {
+            JsonNode param = params.get(name);
+            JsonNode value = param == null ? null : param.get("default");
+            if (value != null && value.asText().equals(UNDEFINED)) {
+                // The leading domain profile or host is not part of a standalone server address.
+                if (address.length() == 0) {
+                    continue;
+                }
+                value = null;
+            }
+            // The first element (subsystem, core-service, ...) is always named.
+            boolean named = value != null && (defaults || address.length() == 0);
+            address.append('/').append(name).append('=').append(named ? value.asText() : "*");
+        }
+        return address.toString();
+    }
+
+    /**
+     * The description of the resource is the paragraph following the page title, an attribute of the attributes
+     * section is a {@code <a id="name" ...>name</a> - description} link.
+     *
+     * @return The resource description.
+     */
+    private static String parsePage(String html, Map<String, String> attributes) {
+        String description = null;
+        int title = html.indexOf("</h1>");
+        int header = html.indexOf("</header>");
+        if (title >= 0) {
+            int paragraph = html.indexOf("<p>", title);
+            int end = paragraph < 0 ? -1 : html.indexOf("</p>", paragraph);
+            if (end >= 0 && (header < 0 || end < header)) {
+                description = text(html.substring(paragraph + 3, end));
+            }
+        }
+        int section = html.indexOf("<h2>Attributes");
+        if (section < 0) {
+            return description;
+        }
+        int sectionEnd = html.indexOf("<h2>", section + 4);
+        if (sectionEnd < 0) {
+            sectionEnd = html.length();
+        }
+        int position = section;
+        while (true) {
+            int link = html.indexOf("<a id=\"", position);
+            if (link < 0 || link > sectionEnd) {
+                return description;
+            }
+            int idEnd = html.indexOf('"', link + 7);
+            String name = LogMessageIndex.unescape(html.substring(link + 7, idEnd));
+            int linkEnd = html.indexOf("</a>", idEnd);
+            int spanEnd = html.indexOf("</span>", linkEnd);
+            String attributeDescription = null;
+            if (spanEnd >= 0 && spanEnd < sectionEnd) {
+                String text = html.substring(linkEnd + 4, spanEnd).trim();
+                attributeDescription = text.startsWith("-") ? text(text.substring(1)) : null;
+                position = spanEnd;
+            } else {
+                position = linkEnd;
+            }
+            attributes.put(name, attributeDescription);
+        }
+    }
+
+    private static String text(String html) {
+        String text = WHITESPACES.matcher(LogMessageIndex.unescape(html)).replaceAll(" ").trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    /**
+     * Add the resources of the next feature-pack, resources already added by a previous feature-pack are kept.
+     *
+     * @param featurePack The feature-pack maven coordinates.
+     * @param resources The parsed resources.
+     * @param referenceIndex The reference pages of the feature-packs added so far, including this one.
+     */
+    void add(String featurePack, List<Resource> resources, ReferenceIndex referenceIndex) {
+        int fpIndex = featurePacks.size();
+        featurePacks.add(featurePack);
+        for (Resource resource : resources) {
+            if (resourceIds.containsKey(resource.address())) {
+                continue;
+            }
+            int id = resourceIds.size();
+            resourceIds.put(resource.address(), id);
+            // An attribute URL is the resource URL followed by the attribute anchor, see Main.formatURL.
+            urls.add(Main.findAddress(referenceIndex, resource.address()));
+            owners.add(fpIndex);
+            addDocument(0, resource.address(), id, resource.description());
+            for (Attribute attribute : resource.attributes()) {
+                addDocument(1, attribute.name(), id, attribute.description());
+            }
+            for (String capability : resource.capabilities()) {
+                addDocument(2, capability, id, null);
+            }
+        }
+    }
+
+    private void addDocument(int kind, String name, int resource, String description) {
+        int id = documents.size();
+        documents.add(new Document(kind, name, resource, description));
+        int posting = id << 3 | kind << 1;
+        addTokens(posting | 1, name);
+        if (description != null) {
+            addTokens(posting, description);
+        }
+    }
+
+    private void addTokens(int posting, String value) {
+        for (String token : SEPARATORS.split(value.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                Set<Integer> postings = tokens.computeIfAbsent(token, k -> new TreeSet<>());
+                // A token of the name is not also recorded as a description token.
+                if (!postings.contains(posting | 1)) {
+                    postings.add(posting);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param mapper The mapper.
+     * @param catalog The generated catalog.
+     * @return The index file, written next to the catalog, null if the feature-packs have no feature spec.
+     * @throws IOException in case of a failure
+     */
+    Path write(ObjectMapper mapper, Path catalog) throws IOException {
+        long start = System.nanoTime();
+        Path shardsDirectory = catalog.resolveSibling(SHARDS_DIRECTORY);
+        Path index = catalog.resolveSibling(FILE);
+        Main.recursiveDelete(shardsDirectory);
+        Files.deleteIfExists(index);
+        if (documents.isEmpty()) {
+            return null;
+        }
+        Files.createDirectories(shardsDirectory);
+        long bytes = 0;
+        int documentShards = 0;
+        for (int first = 0; first < documents.size(); first += DOCUMENTS_PER_SHARD) {
+            Path shard = shardsDirectory.resolve("documents-" + documentShards + ".json");
+            try (JsonGenerator generator = mapper.createGenerator(shard.toFile(), JsonEncoding.UTF8)) {
+                generator.writeStartArray();
+                for (Document document : documents.subList(first, Math.min(first + DOCUMENTS_PER_SHARD, documents.size()))) {
+                    generator.writeStartArray();
+                    generator.writeNumber(document.kind());
+                    generator.writeString(document.name());
+                    generator.writeNumber(document.resource());
+                    generator.writeString(document.description());
+                    generator.writeEndArray();
+                }
+                generator.writeEndArray();
+            }
+            bytes += Files.size(shard);
+            documentShards += 1;
+        }
+        Map<String, Map<String, Set<Integer>>> shardedTokens = new TreeMap<>();
+        for (Entry<String, Set<Integer>> entry : tokens.entrySet()) {
+            shardedTokens.computeIfAbsent(shardKey(entry.getKey()), k -> new TreeMap<>()).put(entry.getKey(), entry.getValue());
+        }
+        Map<String, String> tokenShards = new TreeMap<>();
+        for (Entry<String, Map<String, Set<Integer>>> shardEntry : shardedTokens.entrySet()) {
+            String name = "tokens-" + shardEntry.getKey() + ".json";
+            Path shard = shardsDirectory.resolve(name);
+            try (JsonGenerator generator = mapper.createGenerator(shard.toFile(), JsonEncoding.UTF8)) {
+                generator.writeStartObject();
+                for (Entry<String, Set<Integer>> entry : shardEntry.getValue().entrySet()) {
+                    generator.writeArrayFieldStart(entry.getKey());
+                    for (int posting : entry.getValue()) {
+                        generator.writeNumber(posting);
+                    }
+                    generator.writeEndArray();
+                }
+                generator.writeEndObject();
+            }
+            bytes += Files.size(shard);
+            tokenShards.put(shardEntry.getKey(), SHARDS_DIRECTORY + "/" + name);
+        }
+        try (JsonGenerator generator = mapper.createGenerator(index.toFile(), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("featurePacks");
+            for (String featurePack : featurePacks) {
+                generator.writeString(featurePack);
+            }
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("resources");
+            int id = 0;
+            for (String address : resourceIds.keySet()) {
+                generator.writeStartArray();
+                generator.writeString(address);
+                generator.writeString(urls.get(id));
+                generator.writeNumber(owners.get(id));
+                generator.writeEndArray();
+                id += 1;
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("documents", documents.size());
+            generator.writeNumberField("documentsPerShard", DOCUMENTS_PER_SHARD);
+            generator.writeStringField("documentShards", SHARDS_DIRECTORY + "/documents-");
+            generator.writeObjectFieldStart("tokenShards");
+            for (Entry<String, String> entry : tokenShards.entrySet()) {
+                generator.writeStringField(entry.getKey(), entry.getValue());
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+        System.out.println("Model index of " + resourceIds.size() + " resources and " + documents.size() + " documents, " + tokens.size()
+                + " tokens in " + tokenShards.size() + " shards (" + (bytes + Files.size(index)) + " bytes) written in "
+                + (System.nanoTime() - start) / 1_000_000 + "ms");
+        return index;
+    }
+
+    /**
+     * The first character of the token if it can be used in a file name, {@code _} otherwise.
+     */
+    private static String shardKey(String token) {
+        char c = token.charAt(0);
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') ? String.valueOf(c) : "_";
+    }
+}
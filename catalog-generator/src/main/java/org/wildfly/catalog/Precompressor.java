@@ -0,0 +1,132 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Precompression of the static files of a release: a {@code .gz} sibling is written, in parallel, for the JSON, HTML,
+ * JavaScript and CSS files above a size threshold, so that they can be served as is by web servers supporting
+ * precompressed files. Siblings are always written again, extracted files can be links to older content, and siblings
+ * of removed or small files are deleted. The size of each file and of its compressed sibling is reported in
+ * {@code wildfly-catalog-sizes.json}.
+ */
+class Precompressor {
+
+    static final String SIZE_REPORT = "wildfly-catalog-sizes.json";
+    private static final String GZIP_EXTENSION = ".gz";
+    private static final Set<String> EXTENSIONS = Set.of(".json", ".html", ".js", ".css");
+
+    private record Compressed(String path, long size, long gzipSize) {}
+
+    /**
+     * @param mapper The mapper.
+     * @param directory The release directory.
+     * @param threshold The minimum size of the files to compress.
+     * @param threads The number of files compressed in parallel.
+     * @throws Exception in case of a failure
+     */
+    static void compress(ObjectMapper mapper, Path directory, long threshold, int threads) throws Exception {
+        long start = System.nanoTime();
+        Path report = directory.resolve(SIZE_REPORT);
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        List<Path> toCompress = new ArrayList<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(GZIP_EXTENSION)) {
+                Path source = file.resolveSibling(name.substring(0, name.length() - GZIP_EXTENSION.length()));
+                if (!Files.exists(source) || !isCompressed(source, threshold)) {
+                    Files.delete(file);
+                }
+            } else if (!file.equals(report) && isCompressed(file, threshold)) {
+                toCompress.add(file);
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Compressed> compressed = new ArrayList<>();
+        try {
+            List<Future<Compressed>> futures = new ArrayList<>();
+            for (Path file : toCompress) {
+                futures.add(executor.submit(() -> gzip(directory, file)));
+            }
+            for (Future<Compressed> future : futures) {
+                compressed.add(Main.await(future));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        long size = 0;
+        long gzipSize = 0;
+        try (JsonGenerator generator = mapper.writerWithDefaultPrettyPrinter().createGenerator(report.toFile(), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeNumberField("threshold", threshold);
+            generator.writeArrayFieldStart("files");
+            compressed.sort(Comparator.comparingLong(Compressed::size).reversed().thenComparing(Compressed::path));
+            for (Compressed c : compressed) {
+                generator.writeStartObject();
+                generator.writeStringField("path", c.path());
+                generator.writeNumberField("size", c.size());
+                generator.writeNumberField("gzipSize", c.gzipSize());
+                generator.writeEndObject();
+                size += c.size();
+                gzipSize += c.gzipSize();
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("size", size);
+            generator.writeNumberField("gzipSize", gzipSize);
+            generator.writeEndObject();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Precompressed " + compressed.size() + " files of " + directory + " in " + millis + "ms: "
+                + size / 1024 + "KB to " + gzipSize / 1024 + "KB (" + (size == 0 ? 100 : gzipSize * 100 / size) + "%), see " + report);
+    }
+
+    private static boolean isCompressed(Path file, long threshold) throws IOException {
+        String name = file.getFileName().toString();
+        int i = name.lastIndexOf('.');
+        return i >= 0 && EXTENSIONS.contains(name.substring(i)) && Files.size(file) >= threshold;
+    }
+
+    private static Compressed gzip(Path directory, Path file) throws IOException {
+        Path gz = file.resolveSibling(file.getFileName() + GZIP_EXTENSION);
+        String path = directory.relativize(file).toString().replace('\\', '/');
+        // Not a temporary file, created with the default permissions to be served.
+        Path tmp = gz.resolveSibling(gz.getFileName() + ".tmp");
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp), 64 * 1024) {
+                {
+                    def.setLevel(Deflater.BEST_COMPRESSION);
+                }
+            }) {
+                Files.copy(file, out);
+            }
+            Files.move(tmp, gz, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return new Compressed(path, Files.size(file), Files.size(gz));
+    }
+}
@@ -0,0 +1,499 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * Local HTTP preview of generated catalogs. The feature-packs doc zips are not extracted: they are mounted at their
+ * {@code featurePacks/<n>_<groupId>_<artifactId>/} location, the generation reads them through a zip file system and
+ * the server serves their entries from the zip file, located with the zip central directory. Stored entries are
+ * transferred from the zip file channel, deflated entries are sent as is, wrapped in a gzip member, to the clients that
+ * accept gzip, and inflated otherwise. Only the extraction is skipped: the other generated files (catalog JSON, indexes,
+ * viewer, layer pages) are written to the catalog directory as in a regular generation, and loaded in memory when the
+ * server is started.
+ * <p>
+ * Responses have a strong ETag (the CRC-32 and the size of the content) and support {@code If-None-Match} and single
+ * byte ranges ({@code Range} and {@code If-Range}).
+ */
+class PreviewServer {
+
+    private static final String FEATURE_PACKS = "featurePacks";
+    private static final String INDEX_PAGE = "index.html";
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int CENTRAL_DIRECTORY_HEADER = 0x02014b50;
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final Map<String, String> CONTENT_TYPES = Map.ofEntries(
+            Map.entry("html", "text/html; charset=utf-8"),
+            Map.entry("css", "text/css; charset=utf-8"),
+            Map.entry("js", "text/javascript; charset=utf-8"),
+            Map.entry("json", "application/json"),
+            Map.entry("txt", "text/plain; charset=utf-8"),
+            Map.entry("xml", "application/xml"),
+            Map.entry("svg", "image/svg+xml"),
+            Map.entry("png", "image/png"),
+            Map.entry("gif", "image/gif"),
+            Map.entry("jpg", "image/jpeg"),
+            Map.entry("ico", "image/x-icon"),
+            Map.entry("woff", "font/woff"),
+            Map.entry("woff2", "font/woff2"),
+            Map.entry("sml", "application/x-jackson-smile"));
+
+    /**
+     * A zip entry, its data starts after the local header at {@code headerOffset}.
+     */
+    private record Entry(FileChannel channel, int method, long crc, long compressedSize, long size, long headerOffset) {}
+
+    private record Generated(byte[] content, String etag) {}
+
+    /**
+     * The content to send: {@code length} bytes at {@code offset} of the generated content or of the zip entry data.
+     */
+    private record Body(byte[] content, Entry entry, boolean gzip, long offset, long length) {}
+
+    private final Map<Path, FileSystem> fileSystems = new HashMap<>();
+    private final Map<Path, Map<String, Entry>> zips = new HashMap<>();
+    private final Map<String, Map<String, Entry>> mounts = new ConcurrentHashMap<>();
+    private final Map<String, Generated> generated = new HashMap<>();
+    private final List<FileChannel> channels = new ArrayList<>();
+    private String home;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Mount a feature-pack doc zip. A zip shared by variants or WildFly versions is opened once.
+     *
+     * @param path The feature-pack directory path, relative to the catalog root directory.
+     * @param zipFile The doc zip.
+     * @return The root of the zip file system, to read the feature-pack doc during the generation.
+     * @throws IOException in case of a failure
+     */
+    synchronized Path mount(String path, Path zipFile) throws IOException {
+        Path zip = zipFile.toAbsolutePath().normalize();
+        Map<String, Entry> entries = zips.get(zip);
+        if (entries == null) {
+            entries = readCentralDirectory(zip);
+            zips.put(zip, entries);
+            fileSystems.put(zip, Main.newFileSystem(zip));
+        }
+        mounts.put("/" + path + "/", entries);
+        return fileSystems.get(zip).getPath("/");
+    }
+
+    /**
+     * Load the generated files in memory and start serving.
+     *
+     * @param rootDirectory The catalog root directory.
+     * @param wildflyVersions The generated versions, served from their directory of the root directory.
+     * @param port The port to listen to, on the loopback address.
+     * @param threads The number of requests served in parallel.
+     * @throws IOException in case of a failure
+     */
+    void start(Path rootDirectory, List<String> wildflyVersions, int port, int threads) throws IOException {
+        long start = System.nanoTime();
+        long bytes = 0;
+        for (String wildflyVersion : wildflyVersions) {
+            Path versionDirectory = rootDirectory.resolve(wildflyVersion);
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(versionDirectory)) {
+                // Feature-pack directories of a previous (extracted) generation are hidden by the mounts.
+                files = walk.filter(p -> Files.isRegularFile(p) && !rootDirectory.relativize(p).toString().replace('\\', '/').contains("/" + FEATURE_PACKS + "/"))
+                        .collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                byte[] content = Files.readAllBytes(file);
+                generated.put("/" + rootDirectory.relativize(file).toString().replace('\\', '/'), new Generated(content, etag(crc(content), content.length)));
+                bytes += content.length;
+            }
+        }
+        home = "/" + wildflyVersions.get(0) + "/" + INDEX_PAGE;
+        executor = Executors.newFixedThreadPool(threads);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop));
+        System.out.println("Preview of " + generated.size() + " generated files (" + bytes + " bytes) and " + zips.size() + " doc zips ("
+                + mounts.size() + " feature-pack directories) started in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        System.out.println("Catalog preview available at http://localhost:" + server.getAddress().getPort() + home + ", press Ctrl+C to stop");
+    }
+
+    /**
+     * @return The port the server listens to.
+     */
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+        for (FileSystem fileSystem : fileSystems.values()) {
+            try {
+                fileSystem.close();
+            } catch (IOException ex) {
+            }
+        }
+        fileSystems.clear();
+        for (FileChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+            }
+        }
+        channels.clear();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            boolean head = method.equals("HEAD");
+            if (!head && !method.equals("GET")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            if (path == null || !path.startsWith("/") || path.contains("/../") || path.endsWith("/..")) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            if (path.equals("/") && !generated.containsKey("/" + INDEX_PAGE)) {
+                exchange.getResponseHeaders().set("Location", home);
+                exchange.sendResponseHeaders(302, -1);
+                return;
+            }
+            if (path.endsWith("/")) {
+                path += INDEX_PAGE;
+            }
+            Headers requestHeaders = exchange.getRequestHeaders();
+            String etag;
+            long size;
+            byte[] content = null;
+            Entry entry = lookup(path);
+            boolean gzip = false;
+            if (entry != null) {
+                String acceptEncoding = requestHeaders.getFirst("Accept-Encoding");
+                // Ranges are served from the inflated content.
+                gzip = entry.method() == ZipEntry.DEFLATED && requestHeaders.getFirst("Range") == null
+                        && acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+                size = gzip ? GZIP_HEADER.length + entry.compressedSize() + 8 : entry.size();
+                etag = etag(entry.crc(), entry.size());
+                if (gzip) {
+                    etag = etag.substring(0, etag.length() - 1) + "-gzip\"";
+                }
+            } else {
+                Generated file = generated.get(path);
+                if (file == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                content = file.content();
+                size = content.length;
+                etag = file.etag();
+            }
+            Headers headers = exchange.getResponseHeaders();
+            headers.set("ETag", etag);
+            headers.set("Cache-Control", "no-cache");
+            headers.set("Accept-Ranges", "bytes");
+            if (entry != null && entry.method() == ZipEntry.DEFLATED) {
+                headers.set("Vary", "Accept-Encoding");
+            }
+            if (matches(requestHeaders.getFirst("If-None-Match"), etag)) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            String contentType = contentType(path);
+            if (contentType != null) {
+                headers.set("Content-Type", contentType);
+            }
+            if (gzip) {
+                headers.set("Content-Encoding", "gzip");
+            }
+            long offset = 0;
+            long length = size;
+            int status = 200;
+            String range = requestHeaders.getFirst("Range");
+            String ifRange = requestHeaders.getFirst("If-Range");
+            if (range != null && (ifRange == null || ifRange.equals(etag))) {
+                long[] bounds = parseRange(range, size);
+                if (bounds == null) {
+                    headers.set("Content-Range", "bytes */" + size);
+                    exchange.sendResponseHeaders(416, -1);
+                    return;
+                }
+                if (bounds.length == 2) {
+                    offset = bounds[0];
+                    length = bounds[1] - bounds[0] + 1;
+                    status = 206;
+                    headers.set("Content-Range", "bytes " + bounds[0] + "-" + bounds[1] + "/" + size);
+                }
+            }
+            if (head) {
+                headers.set("Content-Length", Long.toString(length));
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(status, length == 0 ? -1 : length);
+            if (length > 0) {
+                send(exchange.getResponseBody(), new Body(content, entry, gzip, offset, length));
+            }
+        }
+    }
+
+    private Entry lookup(String path) {
+        int fpIndex = path.indexOf("/" + FEATURE_PACKS + "/");
+        if (fpIndex < 0) {
+            return null;
+        }
+        int end = path.indexOf('/', fpIndex + FEATURE_PACKS.length() + 2);
+        if (end < 0) {
+            return null;
+        }
+        Map<String, Entry> entries = mounts.get(path.substring(0, end + 1));
+        return entries == null ? null : entries.get(path.substring(end + 1));
+    }
+
+    private static void send(OutputStream out, Body body) throws IOException {
+        if (body.entry() == null) {
+            out.write(body.content(), (int) body.offset(), (int) body.length());
+            return;
+        }
+        Entry entry = body.entry();
+        long dataOffset = dataOffset(entry);
+        if (entry.method() == ZipEntry.STORED) {
+            transfer(entry.channel(), dataOffset + body.offset(), body.length(), out);
+        } else if (body.gzip()) {
+            // Whole gzip member: header, raw deflate data of the entry, CRC-32 and size.
+            out.write(GZIP_HEADER);
+            transfer(entry.channel(), dataOffset, entry.compressedSize(), out);
+            ByteBuffer trailer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            trailer.putInt((int) entry.crc()).putInt((int) entry.size());
+            out.write(trailer.array());
+        } else {
+            byte[] content = inflate(entry, dataOffset);
+            out.write(content, (int) body.offset(), (int) body.length());
+        }
+    }
+
+    private static void transfer(FileChannel channel, long position, long count, OutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        while (count > 0) {
+            long transferred = channel.transferTo(position, count, target);
+            if (transferred <= 0) {
+                throw new IOException("Unexpected end of zip entry data");
+            }
+            position += transferred;
+            count -= transferred;
+        }
+    }
+
+    private static byte[] inflate(Entry entry, long dataOffset) throws IOException {
+        ByteBuffer compressed = ByteBuffer.allocate((int) entry.compressedSize());
+        readFully(entry.channel(), compressed, dataOffset);
+        byte[] content = new byte[(int) entry.size()];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed.array());
+            int length = 0;
+            while (length < content.length && !inflater.finished()) {
+                int inflated = inflater.inflate(content, length, content.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != content.length) {
+                throw new IOException("Invalid zip entry data, " + length + " bytes inflated instead of " + content.length);
+            }
+        } catch (DataFormatException ex) {
+            throw new IOException(ex);
+        } finally {
+            inflater.end();
+        }
+        return content;
+    }
+
+    private static long dataOffset(Entry entry) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(30).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(entry.channel(), header, entry.headerOffset());
+        if (header.getInt(0) != LOCAL_HEADER) {
+            throw new IOException("Invalid zip local header at " + entry.headerOffset());
+        }
+        return entry.headerOffset() + 30 + Short.toUnsignedInt(header.getShort(26)) + Short.toUnsignedInt(header.getShort(28));
+    }
+
+    /**
+     * Index the file entries of a zip from its central directory.
+     */
+    private Map<String, Entry> readCentralDirectory(Path zip) throws IOException {
+        FileChannel channel = FileChannel.open(zip, StandardOpenOption.READ);
+        channels.add(channel);
+        long fileSize = channel.size();
+        // The end of central directory record is followed by a comment of at most 64KB.
+        int tailSize = (int) Math.min(fileSize, 22 + 0xFFFF);
+        ByteBuffer tail = ByteBuffer.allocate(tailSize).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, tail, fileSize - tailSize);
+        int eocd = -1;
+        for (int i = tailSize - 22; i >= 0; i--) {
+            if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd < 0) {
+            throw new IOException(zip + " is not a zip file");
+        }
+        int count = Short.toUnsignedInt(tail.getShort(eocd + 10));
+        long directorySize = Integer.toUnsignedLong(tail.getInt(eocd + 12));
+        long directoryOffset = Integer.toUnsignedLong(tail.getInt(eocd + 16));
+        if (count == 0xFFFF || directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL) {
+            throw new IOException(zip + " is a Zip64 file, not supported by the preview");
+        }
+        ByteBuffer directory = ByteBuffer.allocate((int) directorySize).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, directory, directoryOffset);
+        Map<String, Entry> entries = new HashMap<>();
+        int position = 0;
+        for (int i = 0; i < count; i++) {
+            if (directory.getInt(position) != CENTRAL_DIRECTORY_HEADER) {
+                throw new IOException("Invalid zip central directory in " + zip);
+            }
+            int method = Short.toUnsignedInt(directory.getShort(position + 10));
+            long crc = Integer.toUnsignedLong(directory.getInt(position + 16));
+            long compressedSize = Integer.toUnsignedLong(directory.getInt(position + 20));
+            long size = Integer.toUnsignedLong(directory.getInt(position + 24));
+            int nameLength = Short.toUnsignedInt(directory.getShort(position + 28));
+            int extraLength = Short.toUnsignedInt(directory.getShort(position + 30));
+            int commentLength = Short.toUnsignedInt(directory.getShort(position + 32));
+            long headerOffset = Integer.toUnsignedLong(directory.getInt(position + 42));
+            String name = new String(directory.array(), position + 46, nameLength, StandardCharsets.UTF_8);
+            if (!name.endsWith("/") && (method == ZipEntry.STORED || method == ZipEntry.DEFLATED)) {
+                entries.put(name, new Entry(channel, method, crc, compressedSize, size, headerOffset));
+            }
+            position += 46 + nameLength + extraLength + commentLength;
+        }
+        return entries;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of zip file");
+            }
+        }
+    }
+
+    /**
+     * @return The first and last positions of a single range, an empty array to ignore the range (multiple ranges or
+     * invalid syntax) and null if the range can't be satisfied.
+     */
+    static long[] parseRange(String range, long size) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        long first = position(spec.substring(0, dash));
+        long last = position(spec.substring(dash + 1));
+        if (dash == 0) {
+            // Suffix range: the last n bytes.
+            if (last < 0) {
+                return new long[0];
+            }
+            return last == 0 || size == 0 ? null : new long[] {Math.max(0, size - last), size - 1};
+        }
+        boolean open = dash == spec.length() - 1;
+        if (first < 0 || (!open && (last < 0 || last < first))) {
+            return new long[0];
+        }
+        return first >= size ? null : new long[] {first, open ? size - 1 : Math.min(size - 1, last)};
+    }
+
+    /**
+     * @return The byte position, -1 if not only digits.
+     */
+    private static long position(String value) {
+        if (value.isEmpty()) {
+            return -1;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                return -1;
+            }
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String contentType(String path) {
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? null : CONTENT_TYPES.get(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private static long crc(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    private static String etag(long crc, long size) {
+        return "\"" + Long.toHexString(crc) + "-" + Long.toHexString(size) + "\"";
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Index of the management model reference pages ({@code doc/reference/**}/index.html) of the feature-packs of a variant.
+ * A page is owned by the first feature-pack (in feature-pack order) that contains it.
+ */
+class ReferenceIndex {
+
+    static final String REFERENCE_DIR = "doc/reference";
+    private static final String INDEX_PAGE = "index.html";
+
+    private final Map<String, Integer> pages = new HashMap<>();
+    private final List<String> fpDirectoryNames = new ArrayList<>();
+    private long lookups;
+    private long misses;
+    private long probesAvoided;
+    private long lookupNanos;
+
+    /**
+     * Lists the reference pages of an extracted feature-pack.
+     *
+     * @param fpDirectory The feature-pack directory.
+     * @return The page paths, relative to the feature-pack reference directory.
+     * @throws IOException in case of a failure
+     */
+    static List<String> listPages(Path fpDirectory) throws IOException {
+        Path referenceDir = fpDirectory.resolve(REFERENCE_DIR);
+        if (!Files.isDirectory(referenceDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(referenceDir)) {
+            return files.filter(p -> p.getFileName().toString().equals(INDEX_PAGE))
+                    .map(p -> referenceDir.relativize(p).toString().replace('\\', '/'))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Add the pages of the next feature-pack. Pages already owned by a previous feature-pack are kept.
+     */
+    void add(String fpDirectoryName, List<String> referencePages) {
+        int fpIndex = fpDirectoryNames.size();
+        fpDirectoryNames.add(fpDirectoryName);
+        for (String page : referencePages) {
+            pages.putIfAbsent(page, fpIndex);
+        }
+    }
+
+    /**
+     * @param path The page path, relative to the reference directory, can contain an anchor.
+     * @return The URL of the page relative to the variant directory or null if no feature-pack contains the page.
+     */
+    String find(String path) {
+        long start = System.nanoTime();
+        lookups += 1;
+        String page = path;
+        int i = page.indexOf('#');
+        if (i >= 0) {
+            page = page.substring(0, i);
+        }
+        Integer fpIndex = pages.get(page);
+        String url = null;
+        if (fpIndex == null) {
+            misses += 1;
+            probesAvoided += fpDirectoryNames.size();
+        } else {
+            probesAvoided += fpIndex + 1;
+            url = "featurePacks/" + fpDirectoryNames.get(fpIndex) + "/" + REFERENCE_DIR + "/" + path;
+        }
+        lookupNanos += System.nanoTime() - start;
+        return url;
+    }
+
+    long lookups() {
+        return lookups;
+    }
+
+    long misses() {
+        return misses;
+    }
+
+    long lookupNanos() {
+        return lookupNanos;
+    }
+
+    String stats() {
+        return "Model reference lookups: " + lookups + ", misses: " + misses + ", file system probes avoided: "
+                + probesAvoided + ", lookup time: " + (lookupNanos / 1_000) + "us, indexed pages: " + pages.size();
+    }
+}
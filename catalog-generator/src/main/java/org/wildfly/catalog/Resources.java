@@ -4,6 +4,11 @@
  */
 package org.wildfly.catalog;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.nio.file.Path;
+import java.util.List;
+
 /**
  *
  * @author jdenise
@@ -11,4 +16,15 @@ package org.wildfly.catalog;
 public class Resources {
 
     record Variant(String directory, String description) {}
+
+    record FeaturePackDoc(String mavenCoordinates, String directoryName, Path directory, JsonNode metadata, List<String> referencePages,
+            List<ModelIndex.Resource> model, String checksum, CachedFeaturePack cached) {}
+
+    record CatalogLayer(String category, String name, ObjectNode layer) {}
+
+    record GenerationOptions(boolean release, boolean prefetchOnly, int threads, boolean incremental, boolean streaming,
+            boolean sharded, boolean minify, boolean binary, boolean precompress, long precompressThreshold, boolean fingerprint,
+            boolean serviceWorker) {}
+
+    record CachedFeaturePack(ObjectNode featurePack, List<String> referencePages, List<CatalogLayer> layers) {}
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index of the catalog layers, queried by the viewer search. The index maps each token to its postings, a
+ * posting being the position of the layer in the catalog (categories and functionalities in catalog order) shifted
+ * left by {@link #FIELD_BITS}, or'ed with the mask of the search fields the token has been found in. The fields are the
+ * values of the viewer search checkboxes.
+ */
+class SearchIndex {
+
+    static final String FILE = "wildfly-catalog-search.json";
+    static final List<String> FIELDS = List.of("layerName", "description", "api", "addOn", "featurePack");
+    private static final int FIELD_BITS = 5;
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Map<String, Map<Integer, Integer>> tokens = new TreeMap<>();
+    private int layers;
+
+    /**
+     * @param mapper The mapper.
+     * @param catalog The generated catalog.
+     * @return The search index file, written next to the catalog.
+     * @throws IOException in case of a failure
+     */
+    static Path write(ObjectMapper mapper, Path catalog) throws IOException {
+        SearchIndex index = new SearchIndex();
+        try (JsonParser parser = mapper.createParser(catalog.toFile())) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.FIELD_NAME && parser.currentName().equals("categories")) {
+                    parser.nextToken();
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        index.addCategory(parser);
+                    }
+                }
+            }
+        }
+        Path file = catalog.resolveSibling(FILE);
+        try (JsonGenerator generator = mapper.createGenerator(file.toFile(), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("fields");
+            for (String field : FIELDS) {
+                generator.writeString(field);
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("layers", index.layers);
+            generator.writeObjectFieldStart("tokens");
+            for (Entry<String, Map<Integer, Integer>> entry : index.tokens.entrySet()) {
+                generator.writeArrayFieldStart(entry.getKey());
+                for (Entry<Integer, Integer> posting : entry.getValue().entrySet()) {
+                    generator.writeNumber(posting.getKey() << FIELD_BITS | posting.getValue());
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+        System.out.println("Search index " + file.getFileName() + " (" + index.tokens.size() + " tokens, " + Files.size(file) + " bytes) written");
+        return file;
+    }
+
+    private void addCategory(JsonParser parser) throws IOException {
+        String category = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (field.equals("name")) {
+                category = parser.getText();
+            } else if (field.equals("functionalities")) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    JsonNode layer = parser.readValueAsTree();
+                    addLayer(layers, category, layer);
+                    layers += 1;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void addLayer(int id, String category, JsonNode layer) {
+        add(id, "layerName", layer.get("name"));
+        if (category != null) {
+            add(id, "description", category);
+        }
+        add(id, "description", layer.get("description"));
+        add(id, "description", layer.get("note"));
+        JsonNode glowRules = layer.get("glowRules");
+        if (glowRules != null) {
+            for (JsonNode rule : glowRules) {
+                add(id, "api", rule.get("value"));
+            }
+        }
+        add(id, "addOn", layer.get("glowAddOn"));
+        add(id, "featurePack", layer.get("feature-pack"));
+    }
+
+    private void add(int id, String field, JsonNode value) {
+        if (value != null && value.isTextual()) {
+            add(id, field, value.asText());
+        }
+    }
+
+    private void add(int id, String field, String value) {
+        int mask = 1 << FIELDS.indexOf(field);
+        for (String token : SEPARATORS.split(value.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.computeIfAbsent(token, k -> new LinkedHashMap<>()).merge(id, mask, (a, b) -> a | b);
+            }
+        }
+    }
+}
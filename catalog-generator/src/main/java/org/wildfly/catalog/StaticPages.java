@@ -0,0 +1,187 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import static org.wildfly.catalog.TemplateUtils.ENGINE;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.quarkus.qute.Template;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Static HTML prerendered from a generated catalog: the category/layer overview, rendered in the viewer page so that it
+ * is displayed before the catalog is loaded, and one page per layer with all the layer details. The viewer script then
+ * replaces the overview to add the search and the filtering. Element ids and classes are the ones of the viewer, the
+ * layer page file name is the layer element id. The catalog is read one category at a time.
+ */
+class StaticPages {
+
+    static final String LAYERS_DIRECTORY = "layers";
+    private static final String INTERNAL = "Internal";
+    private static final String CLOUD_FEATURE_PACK = "wildfly-cloud-galleon-pack";
+
+    record Overview(String description, List<Category> categories, int pages, long bytes) {}
+
+    record Category(String id, String title, String description, List<LayerLink> layers) {}
+
+    record LayerLink(String id, String name, String page) {}
+
+    record Dependency(String name, String page, boolean optional) {}
+
+    record GlowRule(String name, String ruleDescription, String value, String valueDescription) {}
+
+    record LayerPage(String id, String name, String category, String description, String stability, String glowDiscoverable,
+            String glowAddOn, String featurePack, String note, List<Dependency> dependencies, List<GlowRule> glowRules,
+            List<String> packages, String managementModel, String configurations) {}
+
+    /**
+     * @param mapper The mapper.
+     * @param catalog The generated catalog.
+     * @return The overview to render in the viewer, the layer pages are written in the {@link #LAYERS_DIRECTORY}
+     * directory next to the catalog.
+     * @throws IOException in case of a failure
+     */
+    static Overview write(ObjectMapper mapper, Path catalog) throws IOException {
+        Path layersDirectory = catalog.resolveSibling(LAYERS_DIRECTORY);
+        Main.recursiveDelete(layersDirectory);
+        Files.createDirectories(layersDirectory);
+        Template template = ENGINE.getTemplate("catalog-layer");
+        ObjectWriter writer = mapper.writerWithDefaultPrettyPrinter();
+        Set<String> ids = layerIds(mapper, catalog);
+        String description = null;
+        List<Category> categories = new ArrayList<>();
+        Category internal = null;
+        int pages = 0;
+        long bytes = 0;
+        try (JsonParser parser = mapper.createParser(catalog.toFile())) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if (field.equals("description")) {
+                    description = parser.getText();
+                } else if (field.equals("categories")) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        JsonNode categoryNode = parser.readValueAsTree();
+                        String name = categoryNode.get("name").asText();
+                        List<LayerLink> links = new ArrayList<>();
+                        for (JsonNode layer : categoryNode.get("functionalities")) {
+                            LayerPage page = layerPage(writer, name, layer, ids);
+                            Path file = layersDirectory.resolve(page.id() + ".html");
+                            TemplateUtils.render(template
+                                    .data("catalogDescription", description)
+                                    .data("layer", page), file);
+                            pages += 1;
+                            bytes += Files.size(file);
+                            links.add(new LayerLink(page.id(), page.name(), LAYERS_DIRECTORY + "/" + file.getFileName()));
+                        }
+                        Category category = new Category(sanitizeForId(name),
+                                INTERNAL.equals(name) ? "Internal (layers that are not to be provisioned directly)" : name,
+                                text(categoryNode, "description"), links);
+                        // As in the viewer, internal layers are listed last.
+                        if (INTERNAL.equals(name)) {
+                            internal = category;
+                        } else {
+                            categories.add(category);
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        if (internal != null) {
+            categories.add(internal);
+        }
+        System.out.println("Static overview of " + categories.size() + " categories and " + pages + " layer pages (" + bytes + " bytes) written");
+        return new Overview(description, categories, pages, bytes);
+    }
+
+    /**
+     * The ids of the catalog layers, dependencies on layers that are not in the catalog are not linked.
+     */
+    private static Set<String> layerIds(ObjectMapper mapper, Path catalog) throws IOException {
+        Set<String> ids = new HashSet<>();
+        try (JsonParser parser = mapper.createParser(catalog.toFile())) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.FIELD_NAME || !parser.currentName().equals("functionalities")) {
+                    continue;
+                }
+                parser.nextToken();
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    String name = null;
+                    String featurePack = null;
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String field = parser.currentName();
+                        parser.nextToken();
+                        if (field.equals("name")) {
+                            name = parser.getText();
+                        } else if (field.equals("feature-pack")) {
+                            featurePack = parser.getText();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    ids.add(layerId(name, featurePack));
+                }
+            }
+        }
+        return ids;
+    }
+
+    static String layerId(String name, String featurePack) {
+        return featurePack != null && featurePack.contains(CLOUD_FEATURE_PACK) ? sanitizeForId(featurePack + "_" + name)
+                : sanitizeForId(name);
+    }
+
+    private static LayerPage layerPage(ObjectWriter writer, String category, JsonNode layer, Set<String> ids) throws IOException {
+        String name = layer.get("name").asText();
+        String featurePack = text(layer, "feature-pack");
+        String id = layerId(name, featurePack);
+        List<Dependency> dependencies = new ArrayList<>();
+        for (JsonNode dep : layer.path("dependencies")) {
+            String depName = dep.get("name").asText();
+            String depId = sanitizeForId(depName);
+            dependencies.add(new Dependency(depName, ids.contains(depId) ? depId + ".html" : null, dep.path("optional").asBoolean()));
+        }
+        List<GlowRule> glowRules = new ArrayList<>();
+        for (JsonNode rule : layer.path("glowRules")) {
+            glowRules.add(new GlowRule(text(rule, "name"), text(rule, "ruleDescription"), text(rule, "value"), text(rule, "valueDescription")));
+        }
+        List<String> packages = new ArrayList<>();
+        for (JsonNode pkg : layer.path("packages")) {
+            packages.add(pkg.asText());
+        }
+        JsonNode model = layer.get("managementModel");
+        JsonNode configurations = layer.get("configurations");
+        return new LayerPage(id, name, category, text(layer, "description"), text(layer, "stability"), text(layer, "glowDiscoverable"),
+                text(layer, "glowAddOn"), featurePack, text(layer, "note"), dependencies, glowRules, packages,
+                model == null || model.isEmpty() ? null : writer.writeValueAsString(model),
+                configurations == null ? null : writer.writeValueAsString(configurations));
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    /**
+     * Same as the viewer {@code sanitizeForId}.
+     */
+    static String sanitizeForId(String text) {
+        return text.replaceAll("[^a-zA-Z0-9_-]", "_");
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.wildfly.catalog.Resources.CatalogLayer;
+import org.wildfly.catalog.Resources.FeaturePackDoc;
+
+/**
+ * Streaming generation of a variant catalog. The feature-packs {@code metadata.json} are parsed token by token, the
+ * management model and configurations of the layers are copied with their {@code _address} resolved as they are
+ * parsed. Processed layers are spooled to a temporary file, only the category, name and dependencies of each layer
+ * are kept in memory until the catalog is written.
+ */
+class StreamingCatalog implements Closeable {
+
+    private record LayerSummary(long offset, int length, ArrayNode dependencies) {}
+
+    private final ObjectMapper mapper;
+    private final FileChannel spool;
+    private final Map<String, Map<String, LayerSummary>> categories = new TreeMap<>();
+
+    StreamingCatalog(ObjectMapper mapper) throws IOException {
+        this.mapper = mapper;
+        Path spoolFile = Files.createTempFile("wildfly-catalog", ".spool");
+        spoolFile.toFile().deleteOnExit();
+        spool = FileChannel.open(spoolFile, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+    }
+
+    /**
+     * Stream the metadata of a feature-pack and spool its layers.
+     *
+     * @return The feature-pack catalog entry.
+     */
+    ObjectNode addFeaturePack(FeaturePackDoc doc, Properties glowRulesDescriptions, ReferenceIndex referenceIndex) throws IOException {
+        Path metadataFile = doc.directory().resolve("doc/META-INF/metadata.json");
+        ObjectNode header = mapper.createObjectNode();
+        Set<String> layersSet = new TreeSet<>();
+        try (JsonParser parser = mapper.createParser(Files.newInputStream(metadataFile))) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT, metadataFile);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if (!field.equals("layers")) {
+                    header.set(field, parser.readValueAsTree());
+                    continue;
+                }
+                if (!header.has("groupId") || !header.has("artifactId") || !header.has("version")) {
+                    throw new IOException("The feature-pack coordinates must be defined before the layers to stream " + metadataFile);
+                }
+                String fp = header.get("groupId").asText() + ":" + header.get("artifactId").asText() + ":" + header.get("version").asText();
+                expect(parser.currentToken(), JsonToken.START_ARRAY, metadataFile);
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    ObjectNode layer = readLayer(parser, referenceIndex);
+                    if (!Main.isInternalLayer(layer)) {
+                        layersSet.add(layer.get("name").asText());
+                    }
+                    CatalogLayer catalogLayer = Main.processLayer(layer, fp, glowRulesDescriptions, mapper, null);
+                    if (catalogLayer != null) {
+                        spool(catalogLayer);
+                    }
+                }
+            }
+        }
+        return Main.featurePackNode(mapper, doc, header, layersSet);
+    }
+
+    /**
+     * Write the catalog, the categories are streamed from the spooled layers.
+     *
+     * @param pretty true to pretty print the catalog.
+     */
+    void write(Path json, ObjectNode target, boolean pretty) throws IOException {
+        try (JsonGenerator generator = (pretty ? mapper.writerWithDefaultPrettyPrinter() : mapper.writer()).createGenerator(json.toFile(), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            Iterator<Entry<String, JsonNode>> fields = target.fields();
+            while (fields.hasNext()) {
+                Entry<String, JsonNode> field = fields.next();
+                generator.writeFieldName(field.getKey());
+                generator.writeTree(field.getValue());
+            }
+            generator.writeArrayFieldStart("categories");
+            for (Entry<String, Map<String, LayerSummary>> entry : categories.entrySet()) {
+                generator.writeStartObject();
+                generator.writeStringField("name", entry.getKey());
+                generator.writeArrayFieldStart("functionalities");
+                for (LayerSummary summary : entry.getValue().values()) {
+                    copyLayer(summary, generator);
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        spool.close();
+    }
+
+    private ObjectNode readLayer(JsonParser parser, ReferenceIndex referenceIndex) throws IOException {
+        ObjectNode layer = mapper.createObjectNode();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ((field.equals("managementModel") || field.equals("configurations")) && value.isStructStart()) {
+                StringWriter writer = new StringWriter();
+                boolean empty;
+                try (JsonGenerator generator = mapper.createGenerator(writer)) {
+                    empty = copyModel(parser, generator, referenceIndex);
+                }
+                if (empty) {
+                    layer.set(field, value == JsonToken.START_OBJECT ? mapper.createObjectNode() : mapper.createArrayNode());
+                } else {
+                    layer.putRawValue(field, new RawValue(writer.toString()));
+                }
+            } else {
+                layer.set(field, parser.readValueAsTree());
+            }
+        }
+        return layer;
+    }
+
+    /**
+     * Copy the model the parser is positioned on, resolving the {@code _address} fields.
+     *
+     * @return true if the model is an empty object or array
+     */
+    private static boolean copyModel(JsonParser parser, JsonGenerator generator, ReferenceIndex referenceIndex) throws IOException {
+        int depth = 0;
+        int tokens = 0;
+        JsonToken token = parser.currentToken();
+        do {
+            tokens += 1;
+            if (token == JsonToken.FIELD_NAME && parser.currentName().equals("_address")) {
+                if (parser.nextToken() == JsonToken.VALUE_STRING) {
+                    String foundURL = Main.resolveAddress(referenceIndex, parser.getText());
+                    if (foundURL != null) {
+                        generator.writeStringField("_address", foundURL);
+                    }
+                } else {
+                    generator.writeFieldName("_address");
+                    generator.copyCurrentStructure(parser);
+                }
+            } else {
+                generator.copyCurrentEvent(parser);
+                if (token.isStructStart()) {
+                    depth += 1;
+                } else if (token.isStructEnd()) {
+                    depth -= 1;
+                }
+            }
+            if (depth == 0) {
+                break;
+            }
+            token = parser.nextToken();
+        } while (token != null);
+        return tokens == 2;
+    }
+
+    private void spool(CatalogLayer catalogLayer) throws IOException {
+        byte[] content = mapper.writeValueAsBytes(catalogLayer.layer());
+        long offset = spool.size();
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        while (buffer.hasRemaining()) {
+            spool.write(buffer, offset + buffer.position());
+        }
+        ArrayNode dependencies = (ArrayNode) catalogLayer.layer().get("dependencies");
+        Map<String, LayerSummary> layers = categories.computeIfAbsent(catalogLayer.category(), k -> new TreeMap<>());
+        LayerSummary overriden = layers.get(catalogLayer.name());
+        if (overriden != null && dependencies != null) {
+            // add all dependencies
+            dependencies.addAll(overriden.dependencies());
+        }
+        layers.put(catalogLayer.name(), new LayerSummary(offset, content.length, dependencies));
+    }
+
+    private void copyLayer(LayerSummary summary, JsonGenerator generator) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(summary.length());
+        while (buffer.hasRemaining()) {
+            if (spool.read(buffer, summary.offset() + buffer.position()) < 0) {
+                throw new IOException("Truncated catalog spool");
+            }
+        }
+        try (JsonParser parser = mapper.createParser(buffer.array())) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT, null);
+            generator.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                generator.writeFieldName(field);
+                if (field.equals("dependencies") && summary.dependencies() != null) {
+                    parser.skipChildren();
+                    generator.writeTree(summary.dependencies());
+                } else {
+                    generator.copyCurrentStructure(parser);
+                }
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private static void expect(JsonToken token, JsonToken expected, Path file) throws IOException {
+        if (token != expected) {
+            throw new IOException("Unexpected JSON token " + token + ", expecting " + expected + (file == null ? "" : " in " + file));
+        }
+    }
+}
@@ -9,19 +9,28 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Locale;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletionException;
 
 import io.quarkus.qute.Engine;
 import io.quarkus.qute.ReflectionValueResolver;
+import io.quarkus.qute.TemplateInstance;
 import io.quarkus.qute.TemplateLocator;
+import io.quarkus.qute.ValueResolvers;
 import io.quarkus.qute.Variant;
 
+/**
+ * The Qute engine rendering the generated HTML pages. Templates are located in {@code /templates}, parsed once and
+ * cached by the engine, and rendered directly to the target files.
+ */
 public class TemplateUtils {
 
     static final Engine ENGINE = engine();
@@ -31,33 +40,57 @@ public class TemplateUtils {
                 .addLocator(new TemplateLocator() {
                     @Override
                     public Optional<TemplateLocation> locate(String id) {
-                        String resourcePath = "/templates/" + id + ".html";
-                        try (InputStream stream = getClass().getResourceAsStream(resourcePath)) {
-                            if (stream != null) {
-                                try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, UTF_8))) {
-                                    String content = reader.lines().collect(Collectors.joining("\n"));
-
-                                    return Optional.of(new TemplateLocation() {
-                                        @Override
-                                        public Reader read() {
-                                            return new StringReader(content);
-                                        }
-
-                                        @Override
-                                        public Optional<Variant> getVariant() {
-                                            return Optional.of(new Variant(Locale.getDefault(), UTF_8, Variant.TEXT_HTML));
-                                        }
-                                    });
+                        // Templates of other types than HTML are located with their extension.
+                        boolean javaScript = id.endsWith(".js");
+                        URL resource = TemplateUtils.class.getResource("/templates/" + id + (javaScript ? "" : ".html"));
+                        if (resource == null) {
+                            return Optional.empty();
+                        }
+                        return Optional.of(new TemplateLocation() {
+                            @Override
+                            public Reader read() {
+                                // Only read when the template is parsed.
+                                try {
+                                    return new BufferedReader(new InputStreamReader(resource.openStream(), UTF_8));
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
                                 }
                             }
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                        return Optional.empty();
+
+                            @Override
+                            public Optional<Variant> getVariant() {
+                                return Optional.of(new Variant(Locale.getDefault(), UTF_8, javaScript ? "text/javascript" : Variant.TEXT_HTML));
+                            }
+                        });
                     }
                 })
                 .addDefaults()
+                .addValueResolver(ValueResolvers.rawResolver())
                 .addValueResolver(new ReflectionValueResolver())
                 .build();
     }
+
+    /**
+     * Render a template to a file, the rendered content is streamed to the file.
+     *
+     * @param template The template instance.
+     * @param target The file to write.
+     * @throws IOException in case of a failure
+     */
+    static void render(TemplateInstance template, Path target) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(target, UTF_8)) {
+            template.consume(chunk -> {
+                try {
+                    writer.write(chunk);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).toCompletableFuture().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw e;
+        }
+    }
 }
@@ -0,0 +1,221 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Extraction of the feature-packs doc zips. The zip entries are read from the central directory, the directories are
+ * created in one pass and the files are then written with a reusable buffer, sequentially or split in contiguous
+ * ranges of entries written in parallel. Existing files are replaced.
+ * <p>
+ * A zip is only extracted once per generator run, the feature-packs shared by variants or WildFly versions are linked
+ * to (or copied from, if links are not supported) the files written by the first extraction. Only these files are
+ * linked, not the files added next to them later on (fingerprinted or compressed copies, temporary files).
+ */
+class ZipExtractor {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * @param entries The number of files extracted.
+     * @param bytes The size of the files extracted.
+     */
+    record Extracted(int entries, long bytes) {}
+
+    private final ContentStore contentStore;
+    private final ExecutorService writers;
+    private final int parallelism;
+    private final Map<Path, Extraction> extractions = new ConcurrentHashMap<>();
+
+    private record Extraction(Path directory, FutureTask<Unzipped> task) {}
+
+    /**
+     * @param extracted The extracted files count and size.
+     * @param directories The directories created, relative to the extraction directory, parents first.
+     * @param files The files written, relative to the extraction directory.
+     */
+    private record Unzipped(Extracted extracted, List<String> directories, List<String> files) {}
+
+    /**
+     * @param contentStore The store the files content is written to, null to write the files content.
+     * @param writers The executor to write the files of a zip in parallel, null to write them sequentially.
+     * @param parallelism The number of ranges of entries written in parallel.
+     */
+    ZipExtractor(ContentStore contentStore, ExecutorService writers, int parallelism) {
+        this.contentStore = contentStore;
+        this.writers = writers;
+        this.parallelism = writers == null ? 1 : parallelism;
+    }
+
+    /**
+     * @param zipFile The zip file.
+     * @param targetDir The directory to extract the zip content to.
+     * @return The extracted files count and size.
+     * @throws IOException in case of a failure
+     */
+    Extracted extract(Path zipFile, Path targetDir) throws IOException {
+        Path root = targetDir.toAbsolutePath().normalize();
+        Extraction extraction = new Extraction(root, new FutureTask<>(() -> unzip(zipFile, root)));
+        Extraction first = extractions.putIfAbsent(zipFile.toAbsolutePath().normalize(), extraction);
+        if (first == null || first.directory().equals(root)) {
+            extraction.task().run();
+            return await(extraction.task()).extracted();
+        }
+        return link(zipFile, first.directory(), root, await(first.task()));
+    }
+
+    private Unzipped unzip(Path zipFile, Path root) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(root);
+        long bytes = 0;
+        int entries;
+        List<String> createdDirectories;
+        List<String> writtenFiles;
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            List<ZipEntry> files = new ArrayList<>();
+            Set<Path> directories = new TreeSet<>();
+            Enumeration<? extends ZipEntry> it = zip.entries();
+            while (it.hasMoreElements()) {
+                ZipEntry entry = it.nextElement();
+                Path target = resolve(root, entry);
+                if (entry.isDirectory()) {
+                    directories.add(target);
+                } else {
+                    files.add(entry);
+                    directories.add(target.getParent());
+                }
+            }
+            // Parents are sorted before their children, existing directories are kept.
+            for (Path dir : directories) {
+                if (!Files.isDirectory(dir)) {
+                    Files.createDirectories(dir);
+                }
+            }
+            entries = files.size();
+            createdDirectories = relativize(root, directories);
+            writtenFiles = new ArrayList<>(entries);
+            for (ZipEntry entry : files) {
+                writtenFiles.add(root.relativize(resolve(root, entry)).toString());
+            }
+            if (parallelism == 1 || files.size() < parallelism) {
+                bytes = write(zip, root, files);
+            } else {
+                List<Future<Long>> ranges = new ArrayList<>();
+                int rangeSize = (files.size() + parallelism - 1) / parallelism;
+                for (int i = 0; i < files.size(); i += rangeSize) {
+                    List<ZipEntry> range = files.subList(i, Math.min(i + rangeSize, files.size()));
+                    ranges.add(writers.submit(() -> write(zip, root, range)));
+                }
+                for (Future<Long> range : ranges) {
+                    bytes += await(range);
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+        double mb = bytes / (1024d * 1024d);
+        System.out.println(String.format("Extracted %s: %d entries, %.1f MB in %.0f ms (%.0f entries/s, %.1f MB/s)",
+                zipFile.getFileName(), entries, mb, seconds * 1000, entries / seconds, mb / seconds));
+        return new Unzipped(new Extracted(entries, bytes), createdDirectories, writtenFiles);
+    }
+
+    private static List<String> relativize(Path root, Set<Path> paths) {
+        List<String> relative = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            relative.add(root.relativize(path).toString());
+        }
+        return relative;
+    }
+
+    /**
+     * Link the files written by a previous extraction of the zip.
+     */
+    private Extracted link(Path zipFile, Path source, Path root, Unzipped unzipped) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(root);
+        for (String directory : unzipped.directories()) {
+            Path target = root.resolve(directory);
+            if (!Files.isDirectory(target)) {
+                Files.createDirectories(target);
+            }
+        }
+        for (String file : unzipped.files()) {
+            Path sourceFile = source.resolve(file);
+            Path target = root.resolve(file);
+            // Never write through an existing link.
+            Files.deleteIfExists(target);
+            try {
+                Files.createLink(target, sourceFile);
+            } catch (UnsupportedOperationException | FileSystemException ex) {
+                Files.copy(sourceFile, target);
+            }
+        }
+        System.out.println(String.format("Extracted %s from %s: %d entries in %.0f ms", zipFile.getFileName(), source,
+                unzipped.extracted().entries(), (System.nanoTime() - start) / 1_000_000d));
+        return unzipped.extracted();
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return Main.await(future);
+        } catch (IOException | RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    private long write(ZipFile zip, Path root, List<ZipEntry> entries) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long bytes = 0;
+        for (ZipEntry entry : entries) {
+            Path target = resolve(root, entry);
+            try (InputStream in = zip.getInputStream(entry)) {
+                if (contentStore != null) {
+                    byte[] content = in.readAllBytes();
+                    contentStore.write(content, target);
+                    bytes += content.length;
+                    continue;
+                }
+                // The existing file can be a link to a content store, it is replaced and not written through.
+                Files.deleteIfExists(target);
+                try (OutputStream out = Files.newOutputStream(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                    int read;
+                    while ((read = in.read(buffer)) >= 0) {
+                        out.write(buffer, 0, read);
+                        bytes += read;
+                    }
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static Path resolve(Path root, ZipEntry entry) throws IOException {
+        Path target = root.resolve(entry.getName().replaceFirst("^/+", "")).normalize();
+        if (!target.startsWith(root)) {
+            throw new IOException("Zip entry " + entry.getName() + " is outside of " + root);
+        }
+        return target;
+    }
+}
@@ -0,0 +1,49 @@
+// Generated by the WildFly catalog generator, the cache name changes when any catalog asset changes.
+const cachePrefix = '{cachePrefix}';
+const cacheName = cachePrefix + '{hash}';
+const precache = [{#for file in precache}'{file}'{#if file_hasNext}, {/if}{/for}];
+{|
+const fingerprinted = /\.[0-9a-f]{10}\.[a-z]+$/;
+
+self.addEventListener('install', event => {
+    event.waitUntil(caches.open(cacheName)
+        .then(cache => cache.addAll(precache))
+        .then(() => self.skipWaiting()));
+});
+
+// Only the caches of this variant are deleted, other versions and variants have their own service worker.
+self.addEventListener('activate', event => {
+    event.waitUntil(caches.keys()
+        .then(keys => Promise.all(keys.filter(key => key.startsWith(cachePrefix) && key !== cacheName).map(key => caches.delete(key))))
+        .then(() => self.clients.claim()));
+});
+
+function fetchAndCache(cache, request) {
+    return fetch(request).then(response => {
+        if (response.ok) {
+            cache.put(request, response.clone());
+        }
+        return response;
+    });
+}
+
+self.addEventListener('fetch', event => {
+    const request = event.request;
+    const url = new URL(request.url);
+    if (request.method !== 'GET' || url.origin !== self.location.origin) {
+        return;
+    }
+    event.respondWith(caches.open(cacheName).then(cache => cache.match(request).then(cached => {
+        if (fingerprinted.test(url.pathname)) {
+            // Immutable content.
+            return cached || fetchAndCache(cache, request);
+        }
+        const update = fetchAndCache(cache, request);
+        if (cached) {
+            update.catch(() => {});
+            return cached;
+        }
+        return update;
+    })));
+});
+|}
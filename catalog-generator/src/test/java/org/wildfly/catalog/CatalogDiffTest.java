@@ -0,0 +1,136 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CatalogDiffTest {
+
+    private static final String WILDFLY = "org.wildfly:wildfly-galleon-pack:";
+    private static final String CLOUD = "org.wildfly.cloud:wildfly-cloud-galleon-pack:";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void layersAddedAndRemoved() throws Exception {
+        JsonNode diff = diff(catalog("1.0", layer("ee", WILDFLY + "1.0"), layer("jaxrs", WILDFLY + "1.0")),
+                catalog("1.0", layer("ee", WILDFLY + "1.0"), layer("jpa", WILDFLY + "1.0")));
+        assertEquals(List.of("jpa"), names(diff.at("/layers/added")));
+        assertEquals(List.of("jaxrs"), names(diff.at("/layers/removed")));
+        assertEquals("layers/jpa.html", diff.at("/layers/added/0/page").asText());
+        assertEquals(0, diff.at("/layers/changed").size());
+    }
+
+    @Test
+    void renamedLayerIsRemovedAndAdded() throws Exception {
+        JsonNode diff = diff(catalog("1.0", layer("microprofile-openapi", WILDFLY + "1.0")),
+                catalog("1.0", layer("openapi", WILDFLY + "1.0")));
+        assertEquals(List.of("openapi"), names(diff.at("/layers/added")));
+        assertEquals(List.of("microprofile-openapi"), names(diff.at("/layers/removed")));
+    }
+
+    @Test
+    void layersOfUpdatedFeaturePacksAreMatched() throws Exception {
+        JsonNode diff = diff(catalog("1.0", layer("ee", WILDFLY + "1.0"), layer("ee", CLOUD + "1.0")),
+                catalog("2.0", layer("ee", WILDFLY + "2.0"), layer("ee", CLOUD + "2.0")));
+        assertEquals(0, diff.at("/layers/added").size());
+        assertEquals(0, diff.at("/layers/removed").size());
+        assertEquals(2, diff.at("/featurePacks/updated").size());
+        assertEquals("org.wildfly:wildfly-galleon-pack", diff.at("/featurePacks/updated/0/0").asText());
+        assertEquals("1.0", diff.at("/featurePacks/updated/0/1").asText());
+        assertEquals("2.0", diff.at("/featurePacks/updated/0/2").asText());
+    }
+
+    @Test
+    void missingStabilityIsDefault() throws Exception {
+        JsonNode diff = diff(catalog("1.0", layer("ee", WILDFLY + "1.0"), layer("jpa", WILDFLY + "1.0")),
+                catalog("1.0", layer("ee", WILDFLY + "1.0").put("stability", "default"),
+                        layer("jpa", WILDFLY + "1.0").put("stability", "preview")));
+        assertEquals(1, diff.at("/layers/changed").size());
+        assertEquals("jpa", diff.at("/layers/changed/0/name").asText());
+        assertEquals("default", diff.at("/layers/changed/0/stability/0").asText());
+        assertEquals("preview", diff.at("/layers/changed/0/stability/1").asText());
+    }
+
+    @Test
+    void dependenciesChanged() throws Exception {
+        ObjectNode previous = layer("ee", WILDFLY + "1.0");
+        dependency(previous, "naming", false);
+        dependency(previous, "transactions", false);
+        ObjectNode layer = layer("ee", WILDFLY + "1.0");
+        dependency(layer, "naming", true);
+        dependency(layer, "elytron", false);
+        JsonNode diff = diff(catalog("1.0", previous), catalog("1.0", layer));
+        JsonNode dependencies = diff.at("/layers/changed/0/dependencies");
+        assertEquals("elytron", dependencies.at("/added/0/0").asText());
+        assertEquals("transactions", dependencies.at("/removed/0/0").asText());
+        assertEquals("naming", dependencies.at("/optional/0/0").asText());
+        assertEquals(true, dependencies.at("/optional/0/1").asBoolean());
+    }
+
+    @Test
+    void noPreviousCatalog() throws Exception {
+        Path catalog = write("current", catalog("1.0"));
+        assertNull(CatalogDiff.write(mapper, catalog, new CatalogDiff.Previous("0.9", directory.resolve("none"), null), "1.0", "default"));
+    }
+
+    private JsonNode diff(ObjectNode from, ObjectNode to) throws Exception {
+        write("previous", from);
+        Path catalog = write("current", to);
+        Path diff = CatalogDiff.write(mapper, catalog, new CatalogDiff.Previous("0.9", directory.resolve("previous"), null), "1.0", "default");
+        return mapper.readTree(diff.toFile());
+    }
+
+    private Path write(String version, ObjectNode catalog) throws Exception {
+        Path file = directory.resolve(version).resolve("default").resolve("wildfly-catalog.json");
+        Files.createDirectories(file.getParent());
+        mapper.writeValue(file.toFile(), catalog);
+        return file;
+    }
+
+    private ObjectNode catalog(String version, ObjectNode... layers) {
+        ObjectNode catalog = mapper.createObjectNode();
+        ArrayNode featurePacks = catalog.putArray("featurePacks");
+        featurePacks.addObject().put("mavenCoordinates", WILDFLY + version);
+        featurePacks.addObject().put("mavenCoordinates", CLOUD + version);
+        ArrayNode functionalities = catalog.putArray("categories").addObject().put("name", "Core").putArray("functionalities");
+        for (ObjectNode layer : layers) {
+            functionalities.add(layer);
+        }
+        return catalog;
+    }
+
+    private ObjectNode layer(String name, String featurePack) {
+        return mapper.createObjectNode().put("name", name).put("feature-pack", featurePack);
+    }
+
+    private static void dependency(ObjectNode layer, String name, boolean optional) {
+        ArrayNode dependencies = layer.has("dependencies") ? (ArrayNode) layer.get("dependencies") : layer.putArray("dependencies");
+        dependencies.addObject().put("name", name).put("optional", optional);
+    }
+
+    private static List<String> names(JsonNode layers) {
+        List<String> names = new ArrayList<>();
+        for (JsonNode layer : layers) {
+            names.add(layer.path("name").asText());
+        }
+        return names;
+    }
+}
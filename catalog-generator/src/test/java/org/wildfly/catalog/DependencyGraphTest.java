@@ -0,0 +1,118 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DependencyGraphTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectNode catalog = mapper.createObjectNode();
+    private final ArrayNode functionalities = catalog.putArray("categories").addObject().putArray("functionalities");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void chain() throws Exception {
+        layer("a", "b");
+        layer("b", "c");
+        layer("c");
+        JsonNode graph = write();
+        assertEquals(List.of("a", "b", "c"), names(graph.get("layers")));
+        assertEquals(List.of("b", "c"), dependencies(graph, "transitiveDependencies", "a"));
+        assertEquals(List.of("c"), dependencies(graph, "transitiveDependencies", "b"));
+        assertEquals(List.of(), dependencies(graph, "transitiveDependencies", "c"));
+        assertEquals(List.of("a", "b"), dependencies(graph, "transitiveDependents", "c"));
+        assertEquals(List.of(), dependencies(graph, "transitiveDependents", "a"));
+    }
+
+    @Test
+    void cycle() throws Exception {
+        layer("a", "b");
+        layer("b", "c");
+        layer("c", "a");
+        layer("d", "a");
+        JsonNode graph = write();
+        // A layer of a cycle depends on the other layers of the cycle, not on itself.
+        assertEquals(List.of("b", "c"), dependencies(graph, "transitiveDependencies", "a"));
+        assertEquals(List.of("a", "c"), dependencies(graph, "transitiveDependencies", "b"));
+        assertEquals(List.of("a", "b"), dependencies(graph, "transitiveDependencies", "c"));
+        assertEquals(List.of("a", "b", "c"), dependencies(graph, "transitiveDependencies", "d"));
+        assertEquals(List.of("b", "c", "d"), dependencies(graph, "transitiveDependents", "a"));
+        assertEquals(List.of("b"), dependencies(graph, "dependencies", "a"));
+    }
+
+    @Test
+    void selfDependency() throws Exception {
+        layer("a", "a", "b");
+        layer("b");
+        JsonNode graph = write();
+        assertEquals(List.of("a", "b"), dependencies(graph, "dependencies", "a"));
+        assertEquals(List.of("b"), dependencies(graph, "transitiveDependencies", "a"));
+        assertEquals(List.of(), dependencies(graph, "transitiveDependents", "a"));
+    }
+
+    @Test
+    void mergedDefinitions() throws Exception {
+        ObjectNode first = layer("a", "b");
+        dependency(first, "c", true);
+        dependency(first, "d", true);
+        ObjectNode second = layer("a", "b");
+        dependency(second, "c", false);
+        JsonNode graph = write();
+        // Optional if optional in all the definitions, d is not in the catalog and is kept.
+        assertEquals(List.of("a", "b", "c", "d"), names(graph.get("layers")));
+        assertEquals(List.of("b", "c", "d"), dependencies(graph, "dependencies", "a"));
+        assertEquals(List.of("d"), dependencies(graph, "optionalDependencies", "a"));
+        assertEquals(List.of("b", "c", "d"), dependencies(graph, "transitiveDependencies", "a"));
+    }
+
+    private ObjectNode layer(String name, String... dependencies) {
+        ObjectNode layer = functionalities.addObject().put("name", name);
+        layer.putArray("dependencies");
+        for (String dependency : dependencies) {
+            dependency(layer, dependency, false);
+        }
+        return layer;
+    }
+
+    private static void dependency(ObjectNode layer, String name, boolean optional) {
+        ((ArrayNode) layer.get("dependencies")).addObject().put("name", name).put("optional", optional);
+    }
+
+    private JsonNode write() throws Exception {
+        Path file = directory.resolve("wildfly-catalog.json");
+        mapper.writeValue(file.toFile(), catalog);
+        return mapper.readTree(DependencyGraph.write(mapper, file).toFile());
+    }
+
+    private static List<String> dependencies(JsonNode graph, String field, String layer) {
+        List<String> names = names(graph.get("layers"));
+        List<String> dependencies = new ArrayList<>();
+        for (JsonNode id : graph.get(field).get(names.indexOf(layer))) {
+            dependencies.add(names.get(id.asInt()));
+        }
+        return dependencies;
+    }
+
+    private static List<String> names(JsonNode layers) {
+        List<String> names = new ArrayList<>();
+        for (JsonNode name : layers) {
+            names.add(name.asText());
+        }
+        return names;
+    }
+}
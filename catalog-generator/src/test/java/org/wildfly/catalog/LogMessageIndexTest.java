@@ -0,0 +1,91 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+class LogMessageIndexTest {
+
+    @Test
+    void rows() {
+        Map<String, Set<LogMessageIndex.Message>> codes = parse("""
+                <h2 id="WFLYCTL">WFLYCTL</h2>
+                <table>
+                  <tr><th>Code</th><th>Level</th><th>Return Type</th><th>Message</th></tr>
+                  <tr id="WFLYCTL0013">
+                    <td><a href="#WFLYCTL0013">WFLYCTL0013</a></td>
+                    <td>ERROR</td>
+                    <td>void</td>
+                    <td>Operation (%s) failed -
+                    address: (%s)</td>
+                  </tr>
+                  <tr id="WFLYCTL0014">
+                    <td><a href="#WFLYCTL0014">WFLYCTL0014</a></td>
+                    <td></td>
+                    <td>String</td>
+                    <td>Value &lt;%s&gt; &amp; more</td>
+                  </tr>
+                </table>
+                """);
+        assertEquals(List.of("WFLYCTL"), List.copyOf(codes.keySet()));
+        assertEquals(List.of(new LogMessageIndex.Message("WFLYCTL0013", "ERROR", "void", "Operation (%s) failed -\n    address: (%s)", 3),
+                new LogMessageIndex.Message("WFLYCTL0014", "", "String", "Value <%s> & more", 3)), List.copyOf(codes.get("WFLYCTL")));
+    }
+
+    @Test
+    void missingCellsAreEmpty() {
+        Map<String, Set<LogMessageIndex.Message>> codes = parse("""
+                <h2 id="WFLYEE">WFLYEE</h2>
+                <table>
+                  <tr id="WFLYEE0001"><td>WFLYEE0001</td><td>WARN</td></tr>
+                  <tr id="WFLYEE0002"><td>WFLYEE0002</td><td>INFO</td><td>void</td><td>Started</td></tr>
+                  <tr id="WFLYEE0003"></tr>
+                </table>
+                """);
+        assertEquals(List.of(new LogMessageIndex.Message("WFLYEE0001", "WARN", "", "", 3),
+                new LogMessageIndex.Message("WFLYEE0002", "INFO", "void", "Started", 3),
+                new LogMessageIndex.Message("WFLYEE0003", "", "", "", 3)), List.copyOf(codes.get("WFLYEE")));
+    }
+
+    @Test
+    void rowsWithoutIdAreSkipped() {
+        Map<String, Set<LogMessageIndex.Message>> codes = parse("""
+                <tr id=""><td></td><td>INFO</td><td>void</td><td>No id</td></tr>
+                <tr id="WFLYEE0002"><td>WFLYEE0002</td><td>INFO</td><td>void</td><td>Started</td></tr>
+                """);
+        assertEquals(List.of(new LogMessageIndex.Message("WFLYEE0002", "INFO", "void", "Started", 3)), List.copyOf(codes.get("WFLYEE")));
+        assertEquals(1, codes.size());
+    }
+
+    @Test
+    void unterminatedRow() {
+        Map<String, Set<LogMessageIndex.Message>> codes = parse("""
+                <tr id="WFLYEE0001"><td>WFLYEE0001</td><td>WARN</td><td>void</td><td>Truncated
+                """);
+        assertEquals(List.of(new LogMessageIndex.Message("WFLYEE0001", "WARN", "void", "", 3)), List.copyOf(codes.get("WFLYEE")));
+    }
+
+    @Test
+    void codeOfRowsOutsideOfSections() {
+        Map<String, Set<LogMessageIndex.Message>> codes = parse("""
+                <tr id="ISPN000001"><td>ISPN000001</td><td>INFO</td><td>void</td><td>Started</td></tr>
+                <h2 id="WFLYCTL">WFLYCTL</h2>
+                <tr id="WFLYCTL0001"><td>WFLYCTL0001</td><td>INFO</td><td>void</td><td>Started</td></tr>
+                """);
+        assertEquals(List.of("ISPN", "WFLYCTL"), List.copyOf(codes.keySet()));
+    }
+
+    private static Map<String, Set<LogMessageIndex.Message>> parse(String html) {
+        Map<String, Set<LogMessageIndex.Message>> codes = new TreeMap<>();
+        LogMessageIndex.parse(html, 3, codes);
+        return codes;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright The WildFly Authors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package org.wildfly.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PreviewServerTest {
+
+    private static final String CONTENT = "0123456789abcdefghij";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void range() {
+        assertArrayEquals(new long[] {0, 4}, PreviewServer.parseRange("bytes=0-4", 100));
+        assertArrayEquals(new long[] {10, 99}, PreviewServer.parseRange("bytes=10-", 100));
+        assertArrayEquals(new long[] {90, 99}, PreviewServer.parseRange("bytes=90-200", 100));
+        assertArrayEquals(new long[] {5, 5}, PreviewServer.parseRange("bytes= 5-5 ", 100));
+    }
+
+    @Test
+    void suffixRange() {
+        assertArrayEquals(new long[] {90, 99}, PreviewServer.parseRange("bytes=-10", 100));
+        assertArrayEquals(new long[] {0, 99}, PreviewServer.parseRange("bytes=-500", 100));
+        assertNull(PreviewServer.parseRange("bytes=-0", 100));
+        assertNull(PreviewServer.parseRange("bytes=-10", 0));
+    }
+
+    @Test
+    void unsatisfiableRange() {
+        assertNull(PreviewServer.parseRange("bytes=100-", 100));
+        assertNull(PreviewServer.parseRange("bytes=100-200", 100));
+        assertNull(PreviewServer.parseRange("bytes=0-", 0));
+    }
+
+    @Test
+    void malformedRangeIsIgnored() {
+        for (String range : List.of("bytes=", "bytes=-", "bytes=abc", "bytes=5", "bytes=5-3", "bytes=200-100", "bytes=--5",
+                "bytes=+1-2", "bytes=1-+2", "bytes=0x1-2", "bytes=99999999999999999999-", "items=0-4", "bytes=0-1,5-6")) {
+            assertArrayEquals(new long[0], PreviewServer.parseRange(range, 100));
+        }
+    }
+
+    @Test
+    void rangeRequests() throws Exception {
+        Path page = directory.resolve("1.0").resolve("default").resolve("index.html");
+        Files.createDirectories(page.getParent());
+        Files.writeString(page, CONTENT);
+        PreviewServer server = new PreviewServer();
+        server.start(directory, List.of("1.0"), 0, 1);
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            URI uri = URI.create("http://localhost:" + server.port() + "/1.0/default/index.html");
+            HttpResponse<String> full = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            assertEquals(200, full.statusCode());
+            assertEquals(CONTENT, full.body());
+            String etag = full.headers().firstValue("ETag").orElseThrow();
+
+            HttpResponse<String> partial = send(client, uri, "bytes=-5", null);
+            assertEquals(206, partial.statusCode());
+            assertEquals("fghij", partial.body());
+            assertEquals("bytes 15-19/20", partial.headers().firstValue("Content-Range").orElseThrow());
+
+            partial = send(client, uri, "bytes=2-4", etag);
+            assertEquals(206, partial.statusCode());
+            assertEquals("234", partial.body());
+
+            // The content changed since the client got its part: the whole content is sent.
+            for (String ifRange : List.of("\"0-0\"", "W/" + etag, "Thu, 01 Jan 1970 00:00:00 GMT")) {
+                HttpResponse<String> changed = send(client, uri, "bytes=2-4", ifRange);
+                assertEquals(200, changed.statusCode());
+                assertEquals(CONTENT, changed.body());
+            }
+
+            HttpResponse<String> malformed = send(client, uri, "bytes=4-2", null);
+            assertEquals(200, malformed.statusCode());
+            assertEquals(CONTENT, malformed.body());
+
+            HttpResponse<String> unsatisfiable = send(client, uri, "bytes=20-", null);
+            assertEquals(416, unsatisfiable.statusCode());
+            assertEquals("bytes */20", unsatisfiable.headers().firstValue("Content-Range").orElseThrow());
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static HttpResponse<String> send(HttpClient client, URI uri, String range, String ifRange) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).header("Range", range);
+        if (ifRange != null) {
+            request.header("If-Range", ifRange);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+}